@@ -0,0 +1,21 @@
+package com.capgemini.wsb.fitnesstracker.analytics.api;
+
+/**
+ * Aggregate of a set of trainings.
+ *
+ * @param count             number of trainings
+ * @param totalDistance     sum of the distances of the trainings
+ * @param totalAverageSpeed sum of the average speeds of the trainings
+ */
+public record TrainingAggregate(long count, double totalDistance, double totalAverageSpeed) {
+
+    public static final TrainingAggregate EMPTY = new TrainingAggregate(0, 0, 0);
+
+    /**
+     * @return mean of the average speeds of the trainings, or 0 if there are none
+     */
+    public double averageSpeed() {
+        return count == 0 ? 0 : totalAverageSpeed / count;
+    }
+
+}
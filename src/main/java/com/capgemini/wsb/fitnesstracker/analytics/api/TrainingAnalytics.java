@@ -0,0 +1,28 @@
+package com.capgemini.wsb.fitnesstracker.analytics.api;
+
+import java.util.Map;
+
+/**
+ * Optional in-memory engine computing aggregates over all trainings without reading them from the database.
+ * Available only when {@code fitnesstracker.analytics.enabled} is set; consumers should fall back to the repositories otherwise.
+ * The engine is updated after the training writes commit, so its results may briefly lag behind the database.
+ */
+public interface TrainingAnalytics {
+
+    /**
+     * Aggregates the trainings matching the filter.
+     *
+     * @param filter selection of trainings
+     * @return aggregate of the matching trainings
+     */
+    TrainingAggregate aggregate(TrainingFilter filter);
+
+    /**
+     * Aggregates the trainings matching the filter separately for every user.
+     *
+     * @param filter selection of trainings
+     * @return aggregates by user ID; users without matching trainings are absent
+     */
+    Map<Long, TrainingAggregate> aggregateByUser(TrainingFilter filter);
+
+}
@@ -0,0 +1,32 @@
+package com.capgemini.wsb.fitnesstracker.analytics.api;
+
+import com.capgemini.wsb.fitnesstracker.training.internal.ActivityType;
+import jakarta.annotation.Nullable;
+
+import java.util.Date;
+
+/**
+ * Selection of trainings to be aggregated. Every {@code null} component matches all trainings.
+ *
+ * @param userId       ID of the user the trainings belong to
+ * @param activityType activity type of the trainings
+ * @param from         inclusive lower bound of the start time
+ * @param to           exclusive upper bound of the start time
+ */
+public record TrainingFilter(@Nullable Long userId,
+                             @Nullable ActivityType activityType,
+                             @Nullable Date from,
+                             @Nullable Date to) {
+
+    /**
+     * Selects trainings of all users started within the given half-open time range.
+     *
+     * @param from inclusive lower bound of the start time
+     * @param to   exclusive upper bound of the start time
+     * @return the filter
+     */
+    public static TrainingFilter startedBetween(Date from, Date to) {
+        return new TrainingFilter(null, null, from, to);
+    }
+
+}
@@ -0,0 +1,9 @@
+package com.capgemini.wsb.fitnesstracker.analytics.internal;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(AnalyticsProperties.class)
+class AnalyticsConfig {
+}
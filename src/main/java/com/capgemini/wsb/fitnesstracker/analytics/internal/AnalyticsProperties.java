@@ -0,0 +1,30 @@
+package com.capgemini.wsb.fitnesstracker.analytics.internal;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of the in-memory training analytics engine.
+ */
+@ConfigurationProperties(prefix = "fitnesstracker.analytics")
+@Getter
+@Setter
+class AnalyticsProperties {
+
+    /**
+     * Whether trainings are mirrored into the in-memory columnar store.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Number of threads scanning the columns in parallel.
+     */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Number of rows below which a scan is not split further between threads.
+     */
+    private int parallelThreshold = 65_536;
+
+}
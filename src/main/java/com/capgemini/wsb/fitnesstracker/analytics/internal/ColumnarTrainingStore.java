@@ -0,0 +1,383 @@
+package com.capgemini.wsb.fitnesstracker.analytics.internal;
+
+import com.capgemini.wsb.fitnesstracker.analytics.api.TrainingAggregate;
+import com.capgemini.wsb.fitnesstracker.analytics.api.TrainingAnalytics;
+import com.capgemini.wsb.fitnesstracker.analytics.api.TrainingFilter;
+import com.capgemini.wsb.fitnesstracker.training.api.Training;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingSavedEvent;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingsArchivedEvent;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingsDeletedEvent;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingsDroppedEvent;
+import com.capgemini.wsb.fitnesstracker.training.api.UserTrainingsDeletedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.PreparedStatement;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Mirror of the {@code trainings} table in primitive column arrays.
+ * The columns are loaded on application startup and kept current by the training and user write paths through
+ * {@link TrainingSavedEvent}, {@link UserTrainingsDeletedEvent}, {@link TrainingsDeletedEvent}, {@link TrainingsDroppedEvent}
+ * and {@link TrainingsArchivedEvent},
+ * applied after the writes commit. Archived trainings are dropped like deleted ones, so the store matches what it reloads on restart.
+ * Queries scan the columns with plain loops, split between the threads of a dedicated fork/join pool,
+ * without allocating entities or boxing values.
+ */
+@Component
+@ConditionalOnProperty(prefix = "fitnesstracker.analytics", name = "enabled", havingValue = "true")
+@Slf4j
+class ColumnarTrainingStore implements TrainingAnalytics {
+
+    private static final String LOAD_QUERY = "select id, user_id, start_time, end_time, activity_type, distance, average_speed from trainings";
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final int LOAD_FETCH_SIZE = 1000;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> rowsById = new HashMap<>();
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+
+    private int[] userIds = new int[INITIAL_CAPACITY];
+
+    private long[] startTimes = new long[INITIAL_CAPACITY];
+
+    private long[] endTimes = new long[INITIAL_CAPACITY];
+
+    private byte[] activityTypes = new byte[INITIAL_CAPACITY];
+
+    private double[] distances = new double[INITIAL_CAPACITY];
+
+    private double[] averageSpeeds = new double[INITIAL_CAPACITY];
+
+    private int size;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ForkJoinPool pool;
+
+    private final int parallelThreshold;
+
+    ColumnarTrainingStore(JdbcTemplate jdbcTemplate, AnalyticsProperties properties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.pool = new ForkJoinPool(Math.max(1, properties.getParallelism()));
+        this.parallelThreshold = Math.max(1, properties.getParallelThreshold());
+        Gauge.builder("training.analytics.rows", this, ColumnarTrainingStore::size).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void load() {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(LOAD_QUERY);
+            statement.setFetchSize(LOAD_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) row -> upsert(
+                row.getLong("id"),
+                row.getLong("user_id"),
+                row.getTimestamp("start_time").getTime(),
+                row.getTimestamp("end_time").getTime(),
+                row.getByte("activity_type"),
+                row.getDouble("distance"),
+                row.getDouble("average_speed")));
+        log.info("Training analytics store loaded with {} trainings", size());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onTrainingSaved(TrainingSavedEvent event) {
+        Training training = event.training();
+        upsert(training.getId(),
+               training.getUser().getId(),
+               training.getStartTime().getTime(),
+               training.getEndTime().getTime(),
+               (byte) training.getActivityType().ordinal(),
+               training.getDistance(),
+               training.getAverageSpeed());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onUserTrainingsDeleted(UserTrainingsDeletedEvent event) {
+        int userId = Math.toIntExact(event.userId());
+        lock.writeLock().lock();
+        try {
+            int row = 0;
+            while (row < size) {
+                if (userIds[row] == userId)
+                    removeRow(row);
+                else
+                    row++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onTrainingsDropped(TrainingsDroppedEvent event) {
+        long startedBefore = event.startedBefore().getTime();
+        lock.writeLock().lock();
+        try {
+            int row = 0;
+            while (row < size) {
+                if (startTimes[row] < startedBefore)
+                    removeRow(row);
+                else
+                    row++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onTrainingsDeleted(TrainingsDeletedEvent event) {
+        removeRows(event.trainingIds());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onTrainingsArchived(TrainingsArchivedEvent event) {
+        removeRows(event.trainingIds());
+    }
+
+    @Override
+    public TrainingAggregate aggregate(TrainingFilter filter) {
+        lock.readLock().lock();
+        try {
+            Totals totals = pool.invoke(new TotalTask(new Scan(filter), 0, size));
+            return new TrainingAggregate(totals.count, totals.distance, totals.averageSpeed);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Map<Long, TrainingAggregate> aggregateByUser(TrainingFilter filter) {
+        lock.readLock().lock();
+        try {
+            return pool.invoke(new ByUserTask(new Scan(filter), 0, size)).toMap();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void upsert(long id, long userId, long startTime, long endTime, byte activityType, double distance, double averageSpeed) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = rowsById.get(id);
+            int row;
+            if (existing != null) {
+                row = existing;
+            } else {
+                if (size == ids.length)
+                    grow();
+                row = size++;
+                rowsById.put(id, row);
+            }
+            ids[row] = id;
+            userIds[row] = Math.toIntExact(userId);
+            startTimes[row] = startTime;
+            endTimes[row] = endTime;
+            activityTypes[row] = activityType;
+            distances[row] = distance;
+            averageSpeeds[row] = averageSpeed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeRows(List<Long> trainingIds) {
+        lock.writeLock().lock();
+        try {
+            for (Long id : trainingIds) {
+                Integer row = rowsById.get(id);
+                if (row != null)
+                    removeRow(row);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the row by moving the last row into its place. Must be called with the write lock held.
+     */
+    private void removeRow(int row) {
+        rowsById.remove(ids[row]);
+        int last = --size;
+        if (row != last) {
+            ids[row] = ids[last];
+            userIds[row] = userIds[last];
+            startTimes[row] = startTimes[last];
+            endTimes[row] = endTimes[last];
+            activityTypes[row] = activityTypes[last];
+            distances[row] = distances[last];
+            averageSpeeds[row] = averageSpeeds[last];
+            rowsById.put(ids[row], row);
+        }
+    }
+
+    private void grow() {
+        int capacity = ids.length + (ids.length >> 1);
+        ids = Arrays.copyOf(ids, capacity);
+        userIds = Arrays.copyOf(userIds, capacity);
+        startTimes = Arrays.copyOf(startTimes, capacity);
+        endTimes = Arrays.copyOf(endTimes, capacity);
+        activityTypes = Arrays.copyOf(activityTypes, capacity);
+        distances = Arrays.copyOf(distances, capacity);
+        averageSpeeds = Arrays.copyOf(averageSpeeds, capacity);
+    }
+
+    /**
+     * Filter resolved to primitives, together with the columns as they were when the scan started.
+     */
+    private final class Scan {
+
+        final int[] userIds = ColumnarTrainingStore.this.userIds;
+        final long[] startTimes = ColumnarTrainingStore.this.startTimes;
+        final byte[] activityTypes = ColumnarTrainingStore.this.activityTypes;
+        final double[] distances = ColumnarTrainingStore.this.distances;
+        final double[] averageSpeeds = ColumnarTrainingStore.this.averageSpeeds;
+
+        final boolean anyUser;
+        final int userId;
+        final int activityType;
+        final long from;
+        final long to;
+
+        Scan(TrainingFilter filter) {
+            this.anyUser = filter.userId() == null;
+            this.userId = anyUser ? 0 : Math.toIntExact(filter.userId());
+            this.activityType = filter.activityType() == null ? -1 : filter.activityType().ordinal();
+            this.from = filter.from() == null ? Long.MIN_VALUE : filter.from().getTime();
+            this.to = filter.to() == null ? Long.MAX_VALUE : filter.to().getTime();
+        }
+
+        boolean matches(int row) {
+            long startTime = startTimes[row];
+            return startTime >= from && startTime < to
+                    && (activityType < 0 || activityTypes[row] == activityType)
+                    && (anyUser || userIds[row] == userId);
+        }
+
+    }
+
+    private static final class Totals {
+
+        long count;
+        double distance;
+        double averageSpeed;
+
+    }
+
+    private final class TotalTask extends RecursiveTask<Totals> {
+
+        private final Scan scan;
+        private final int from;
+        private final int to;
+
+        TotalTask(Scan scan, int from, int to) {
+            this.scan = scan;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (to - from > parallelThreshold) {
+                int middle = (from + to) >>> 1;
+                TotalTask left = new TotalTask(scan, from, middle);
+                left.fork();
+                Totals right = new TotalTask(scan, middle, to).compute();
+                Totals result = left.join();
+                result.count += right.count;
+                result.distance += right.distance;
+                result.averageSpeed += right.averageSpeed;
+                return result;
+            }
+
+            long count = 0;
+            double distance = 0;
+            double averageSpeed = 0;
+            for (int row = from; row < to; row++) {
+                if (scan.matches(row)) {
+                    count++;
+                    distance += scan.distances[row];
+                    averageSpeed += scan.averageSpeeds[row];
+                }
+            }
+            Totals totals = new Totals();
+            totals.count = count;
+            totals.distance = distance;
+            totals.averageSpeed = averageSpeed;
+            return totals;
+        }
+
+    }
+
+    private final class ByUserTask extends RecursiveTask<UserAggregates> {
+
+        private final Scan scan;
+        private final int from;
+        private final int to;
+
+        ByUserTask(Scan scan, int from, int to) {
+            this.scan = scan;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected UserAggregates compute() {
+            if (to - from > parallelThreshold) {
+                int middle = (from + to) >>> 1;
+                ByUserTask left = new ByUserTask(scan, from, middle);
+                left.fork();
+                UserAggregates right = new ByUserTask(scan, middle, to).compute();
+                UserAggregates result = left.join();
+                result.addAll(right);
+                return result;
+            }
+
+            UserAggregates aggregates = new UserAggregates();
+            for (int row = from; row < to; row++) {
+                if (scan.matches(row))
+                    aggregates.add(scan.userIds[row], 1, scan.distances[row], scan.averageSpeeds[row]);
+            }
+            return aggregates;
+        }
+
+    }
+
+}
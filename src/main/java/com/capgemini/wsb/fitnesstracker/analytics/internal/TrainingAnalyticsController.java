@@ -0,0 +1,54 @@
+package com.capgemini.wsb.fitnesstracker.analytics.internal;
+
+import com.capgemini.wsb.fitnesstracker.analytics.api.TrainingAggregate;
+import com.capgemini.wsb.fitnesstracker.analytics.api.TrainingAnalytics;
+import com.capgemini.wsb.fitnesstracker.analytics.api.TrainingFilter;
+import com.capgemini.wsb.fitnesstracker.training.internal.ActivityType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * REST controller exposing aggregates computed by the in-memory training analytics engine.
+ */
+@RestController
+@RequestMapping("/v1/analytics")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "fitnesstracker.analytics", name = "enabled", havingValue = "true")
+class TrainingAnalyticsController {
+
+    private final TrainingAnalytics trainingAnalytics;
+
+    /**
+     * Aggregates trainings matching all given criteria.
+     *
+     * @param userId optional ID of the user the trainings belong to.
+     * @param activityType optional activity type of the trainings.
+     * @param from optional first day (yyyy-MM-dd) of the start time range.
+     * @param to optional last day (yyyy-MM-dd) of the start time range, inclusive.
+     * @return the aggregate of the matching trainings.
+     */
+    @GetMapping("/trainings")
+    public TrainingAggregate aggregateTrainings(@RequestParam(required = false) Long userId,
+                                                @RequestParam(required = false) ActivityType activityType,
+                                                @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
+                                                @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate to) {
+        return trainingAnalytics.aggregate(new TrainingFilter(userId,
+                                                              activityType,
+                                                              from == null ? null : startOfDay(from),
+                                                              to == null ? null : startOfDay(to.plusDays(1))));
+    }
+
+    private static Date startOfDay(LocalDate day) {
+        return Date.from(day.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+}
@@ -0,0 +1,95 @@
+package com.capgemini.wsb.fitnesstracker.analytics.internal;
+
+import com.capgemini.wsb.fitnesstracker.analytics.api.TrainingAggregate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Open-addressing hash table of per-user aggregates keyed by primitive user IDs, so scans can group rows without boxing.
+ */
+final class UserAggregates {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] userIds;
+
+    private boolean[] used;
+
+    private long[] counts;
+
+    private double[] distances;
+
+    private double[] averageSpeeds;
+
+    private int size;
+
+    UserAggregates() {
+        allocate(MIN_CAPACITY);
+    }
+
+    void add(int userId, long count, double distance, double averageSpeed) {
+        if ((size + 1) * 2 > userIds.length)
+            resize();
+
+        int slot = slotOf(userId);
+        if (!used[slot]) {
+            used[slot] = true;
+            userIds[slot] = userId;
+            size++;
+        }
+        counts[slot] += count;
+        distances[slot] += distance;
+        averageSpeeds[slot] += averageSpeed;
+    }
+
+    void addAll(UserAggregates other) {
+        for (int slot = 0; slot < other.userIds.length; slot++) {
+            if (other.used[slot])
+                add(other.userIds[slot], other.counts[slot], other.distances[slot], other.averageSpeeds[slot]);
+        }
+    }
+
+    Map<Long, TrainingAggregate> toMap() {
+        Map<Long, TrainingAggregate> aggregates = new HashMap<>(size * 2);
+        for (int slot = 0; slot < userIds.length; slot++) {
+            if (used[slot])
+                aggregates.put((long) userIds[slot], new TrainingAggregate(counts[slot], distances[slot], averageSpeeds[slot]));
+        }
+        return aggregates;
+    }
+
+    private int slotOf(int userId) {
+        int mask = userIds.length - 1;
+        int hash = userId * 0x9E3779B9;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (used[slot] && userIds[slot] != userId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        int[] oldUserIds = userIds;
+        boolean[] oldUsed = used;
+        long[] oldCounts = counts;
+        double[] oldDistances = distances;
+        double[] oldAverageSpeeds = averageSpeeds;
+
+        allocate(oldUserIds.length * 2);
+        size = 0;
+        for (int slot = 0; slot < oldUserIds.length; slot++) {
+            if (oldUsed[slot])
+                add(oldUserIds[slot], oldCounts[slot], oldDistances[slot], oldAverageSpeeds[slot]);
+        }
+    }
+
+    private void allocate(int capacity) {
+        userIds = new int[capacity];
+        used = new boolean[capacity];
+        counts = new long[capacity];
+        distances = new double[capacity];
+        averageSpeeds = new double[capacity];
+    }
+
+}
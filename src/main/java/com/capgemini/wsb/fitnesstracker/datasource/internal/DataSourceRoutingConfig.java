@@ -0,0 +1,87 @@
+package com.capgemini.wsb.fitnesstracker.datasource.internal;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Replaces the single application {@link DataSource} with a primary and a replica HikariCP pool behind a
+ * {@link ReadWriteRoutingDataSource}. The primary pool is configured by the usual {@code spring.datasource} properties.
+ * Both pools are beans, so their HikariCP metrics are published tagged by pool name.
+ * Requests are marked with their client by a {@link ReadYourWritesFilter}, which a {@link ReadYourWritesTaskDecorator}
+ * passes on to the tasks of the application task executor, e.g. the bodies of streamed responses.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "fitnesstracker.datasource.routing", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(DataSourceRoutingProperties.class)
+class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(ReadWriteRoutingDataSource.PRIMARY);
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("fitnesstracker.datasource.routing.replica")
+    HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(ReadWriteRoutingDataSource.REPLICA);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(HikariDataSource primaryDataSource,
+                          HikariDataSource replicaDataSource,
+                          DataSourceRoutingProperties dataSourceRoutingProperties,
+                          MeterRegistry meterRegistry) {
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(primaryDataSource,
+                                                                                      replicaDataSource,
+                                                                                      dataSourceRoutingProperties.getStalenessWindow(),
+                                                                                      meterRegistry);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    /**
+     * Releases the connection of a session after every transaction. Otherwise a session kept open for the whole request
+     * would run all its transactions on the connection routed for the first one, e.g. writes on the replica.
+     */
+    @Bean
+    HibernatePropertiesCustomizer releaseConnectionsAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                                            PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Bean
+    FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(DataSourceRoutingProperties dataSourceRoutingProperties) {
+        return new FilterRegistrationBean<>(new ReadYourWritesFilter(dataSourceRoutingProperties.getClientHeader()));
+    }
+
+    /**
+     * Applied by Spring Boot to the application task executor, on which Spring MVC also runs asynchronous requests.
+     */
+    @Bean
+    TaskDecorator readYourWritesTaskDecorator() {
+        return new ReadYourWritesTaskDecorator();
+    }
+
+}
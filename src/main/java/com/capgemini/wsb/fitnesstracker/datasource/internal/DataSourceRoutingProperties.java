@@ -0,0 +1,35 @@
+package com.capgemini.wsb.fitnesstracker.datasource.internal;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the read/write routing between the primary database and its read replica.
+ * The replica pool itself is configured with the HikariCP properties under {@code fitnesstracker.datasource.routing.replica},
+ * e.g. {@code jdbc-url}, {@code username}, {@code password} and {@code maximum-pool-size}.
+ */
+@ConfigurationProperties(prefix = "fitnesstracker.datasource.routing")
+@Getter
+@Setter
+class DataSourceRoutingProperties {
+
+    /**
+     * Whether read-only transactions are routed to the replica.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Replication lag to be expected; read-only transactions of a client starting within this time after the commit of
+     * the client's own write are routed to the primary, so they do not miss the written data.
+     */
+    private Duration stalenessWindow = Duration.ofSeconds(5);
+
+    /**
+     * Request header identifying the client for the staleness window; without it, the HTTP session or the address is used.
+     */
+    private String clientHeader = "X-Client-Id";
+
+}
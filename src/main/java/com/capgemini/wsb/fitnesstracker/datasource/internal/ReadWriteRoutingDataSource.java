@@ -0,0 +1,119 @@
+package com.capgemini.wsb.fitnesstracker.datasource.internal;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.Nullable;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Routes connections of read-only transactions to the replica and all other connections to the primary.
+ * To let clients read their own writes, the commit of a read-write transaction is recorded for the client on whose behalf
+ * it ran, as bound by {@link #bindClient(String)}; read-only transactions of that client starting within the staleness
+ * window after the commit go to the primary as well. Writes without a bound client, e.g. of background jobs,
+ * do not affect the routing.
+ * Has to be wrapped in a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, so that the
+ * connection is obtained only once the transaction is marked read-only.
+ * Routed connections are counted by the {@code datasource.routing.connections} metric, tagged by pool.
+ */
+class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    static final String REPLICA = "replica";
+
+    private static final int MAX_TRACKED_CLIENTS = 10_000;
+
+    private static final ThreadLocal<String> CLIENT = new ThreadLocal<>();
+
+    private final long stalenessWindowNanos;
+
+    private final Counter primaryConnections;
+
+    private final Counter replicaConnections;
+
+    private final Map<String, Long> lastWriteNanosByClient = new ConcurrentHashMap<>();
+
+    ReadWriteRoutingDataSource(DataSource primary, DataSource replica, Duration stalenessWindow, MeterRegistry meterRegistry) {
+        this.stalenessWindowNanos = stalenessWindow.toNanos();
+        this.primaryConnections = Counter.builder("datasource.routing.connections").tag("pool", PRIMARY).register(meterRegistry);
+        this.replicaConnections = Counter.builder("datasource.routing.connections").tag("pool", REPLICA).register(meterRegistry);
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    /**
+     * Binds the client on whose behalf the current thread accesses the database, until {@link #clearClient()}.
+     *
+     * @param client key identifying the client, e.g. its session
+     */
+    static void bindClient(String client) {
+        CLIENT.set(client);
+    }
+
+    static void clearClient() {
+        CLIENT.remove();
+    }
+
+    @Nullable
+    static String currentClient() {
+        return CLIENT.get();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String client = CLIENT.get();
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (!wroteRecently(client)) {
+                replicaConnections.increment();
+                return REPLICA;
+            }
+        } else if (client != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+            recordWriteOnCommit(client);
+        }
+
+        primaryConnections.increment();
+        return PRIMARY;
+    }
+
+    private boolean wroteRecently(@Nullable String client) {
+        if (client == null)
+            return false;
+
+        Long lastWriteNanos = lastWriteNanosByClient.get(client);
+        if (lastWriteNanos == null)
+            return false;
+        if (System.nanoTime() - lastWriteNanos <= stalenessWindowNanos)
+            return true;
+
+        lastWriteNanosByClient.remove(client, lastWriteNanos);
+        return false;
+    }
+
+    /**
+     * Records the write of the client once the transaction commits, as the replica may only start applying the changes then.
+     */
+    private void recordWriteOnCommit(String client) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (lastWriteNanosByClient.size() >= MAX_TRACKED_CLIENTS)
+                    removeExpiredWrites();
+                lastWriteNanosByClient.put(client, System.nanoTime());
+            }
+        });
+    }
+
+    private void removeExpiredWrites() {
+        long now = System.nanoTime();
+        lastWriteNanosByClient.values().removeIf(lastWriteNanos -> now - lastWriteNanos > stalenessWindowNanos);
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.capgemini.wsb.fitnesstracker.datasource.internal;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Binds the client of every request to the {@link ReadWriteRoutingDataSource}, so that the client reads its own writes.
+ * The client is identified by the configured header, by its HTTP session if there is none, or by its address otherwise.
+ */
+@RequiredArgsConstructor
+class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final String clientHeader;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ReadWriteRoutingDataSource.bindClient(clientOf(request));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadWriteRoutingDataSource.clearClient();
+        }
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        String client = request.getHeader(clientHeader);
+        if (client != null && !client.isBlank())
+            return "header:" + client;
+
+        HttpSession session = request.getSession(false);
+        if (session != null)
+            return "session:" + session.getId();
+        return "address:" + request.getRemoteAddr();
+    }
+
+}
@@ -0,0 +1,27 @@
+package com.capgemini.wsb.fitnesstracker.datasource.internal;
+
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Binds the client of the submitting thread to the {@link ReadWriteRoutingDataSource} while the task runs, so that work
+ * handed off by a request, e.g. the body of a streamed response, reads the client's own writes as well.
+ */
+class ReadYourWritesTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        String client = ReadWriteRoutingDataSource.currentClient();
+        if (client == null)
+            return runnable;
+
+        return () -> {
+            ReadWriteRoutingDataSource.bindClient(client);
+            try {
+                runnable.run();
+            } finally {
+                ReadWriteRoutingDataSource.clearClient();
+            }
+        };
+    }
+
+}
@@ -1,5 +1,8 @@
 package com.capgemini.wsb.fitnesstracker.statistics.api;
 
+import com.capgemini.wsb.fitnesstracker.analytics.api.TrainingAggregate;
+import com.capgemini.wsb.fitnesstracker.analytics.api.TrainingAnalytics;
+import com.capgemini.wsb.fitnesstracker.analytics.api.TrainingFilter;
 import com.capgemini.wsb.fitnesstracker.statistics.internal.StatisticsRepository;
 import com.capgemini.wsb.fitnesstracker.training.api.Training;
 import com.capgemini.wsb.fitnesstracker.training.internal.TrainingRepository;
@@ -7,6 +10,7 @@ import com.capgemini.wsb.fitnesstracker.user.api.User;
 import com.capgemini.wsb.fitnesstracker.user.api.UserProvider;
 import com.capgemini.wsb.fitnesstracker.user.api.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,6 +19,7 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -22,29 +27,44 @@ public class StatisticsService {
     private final TrainingRepository trainingRepository;
     private final StatisticsRepository statisticsRepository;
     private final UserProvider userProvider;
+    private final ObjectProvider<TrainingAnalytics> trainingAnalytics;
 
     /**
      * Generates and saves statistics for all users for the last month.
+     * If the in-memory analytics engine is enabled, the trainings of all users are aggregated in a single scan of it.
      */
     @Transactional
     public void generateMonthlyStatistics() {
         List<User> users = userProvider.findAllUsers();
+        Date startOfMonth = convertToDate(LocalDate.now().minusMonths(1).withDayOfMonth(1).atStartOfDay());
+        Date endOfMonth = convertToDate(LocalDate.now().withDayOfMonth(1).atStartOfDay());
+        TrainingAnalytics analytics = trainingAnalytics.getIfAvailable();
+        Map<Long, TrainingAggregate> aggregates = analytics == null
+                ? Map.of()
+                : analytics.aggregateByUser(TrainingFilter.startedBetween(startOfMonth, endOfMonth));
 
         for (User user : users) {
-            Date startOfMonth = convertToDate(LocalDate.now().minusMonths(1).withDayOfMonth(1).atStartOfDay());
-            Date endOfMonth = convertToDate(LocalDate.now().withDayOfMonth(1).atStartOfDay());
+            int totalTrainings;
+            double totalDistance;
+            double totalAverageSpeed;
+            if (analytics != null) {
+                TrainingAggregate aggregate = aggregates.getOrDefault(user.getId(), TrainingAggregate.EMPTY);
+                totalTrainings = (int) aggregate.count();
+                totalDistance = aggregate.totalDistance();
+                totalAverageSpeed = aggregate.averageSpeed();
+            } else {
+                List<Training> lastMonthTrainings = trainingRepository.findByUserAndStartTimeBetween(
+                        user, startOfMonth, endOfMonth);
 
-            List<Training> lastMonthTrainings = trainingRepository.findByUserAndStartTimeBetween(
-                    user, startOfMonth, endOfMonth);
-
-            int totalTrainings = lastMonthTrainings.size();
-            double totalDistance = lastMonthTrainings.stream()
-                    .mapToDouble(Training::getDistance)
-                    .sum();
-            double totalAverageSpeed = lastMonthTrainings.stream()
-                    .mapToDouble(Training::getAverageSpeed)
-                    .average()
-                    .orElse(0.0);
+                totalTrainings = lastMonthTrainings.size();
+                totalDistance = lastMonthTrainings.stream()
+                        .mapToDouble(Training::getDistance)
+                        .sum();
+                totalAverageSpeed = lastMonthTrainings.stream()
+                        .mapToDouble(Training::getAverageSpeed)
+                        .average()
+                        .orElse(0.0);
+            }
 
 
             Statistics statistics = statisticsRepository.findByUser(user)
@@ -3,6 +3,9 @@ package com.capgemini.wsb.fitnesstracker.statistics.internal;
 import com.capgemini.wsb.fitnesstracker.statistics.api.Statistics;
 import com.capgemini.wsb.fitnesstracker.user.api.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -17,4 +20,14 @@ public interface StatisticsRepository extends JpaRepository<Statistics, Long> {
      * @return An {@link Optional} containing the statistics, or empty if not found
      */
     Optional<Statistics> findByUser(User user);
+
+    /**
+     * Deletes all statistics of a specific user with a single bulk statement, without loading them.
+     *
+     * @param userId the user's id
+     * @return number of deleted statistics
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Statistics s where s.user.id = :userId")
+    int bulkDeleteByUserId(@Param("userId") Long userId);
 }
@@ -2,9 +2,12 @@ package com.capgemini.wsb.fitnesstracker.statistics.internal;
 
 import com.capgemini.wsb.fitnesstracker.statistics.api.Statistics;
 import com.capgemini.wsb.fitnesstracker.statistics.api.StatisticsProvider;
+import com.capgemini.wsb.fitnesstracker.user.api.UserDeletedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -12,6 +15,7 @@ import java.util.Optional;
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@Transactional(readOnly = true)
 public class StatisticsServiceImpl implements StatisticsProvider {
     private final StatisticsRepository statisticsRepository;
 
@@ -24,4 +28,14 @@ public class StatisticsServiceImpl implements StatisticsProvider {
     public List<Statistics> getAllStatistics() {
         return statisticsRepository.findAll();
     }
+
+    /**
+     * Deletes the statistics of the user within the transaction deleting the user.
+     */
+    @EventListener
+    @Transactional
+    void onUserDeleted(UserDeletedEvent event) {
+        int deleted = statisticsRepository.bulkDeleteByUserId(event.userId());
+        log.info("Deleted {} statistics of User {}", deleted, event.userId());
+    }
 }
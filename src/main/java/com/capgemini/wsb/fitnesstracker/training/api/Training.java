@@ -13,18 +13,24 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Date;
 @Entity
-@Table(name = "trainings")
+@Table(name = "trainings", indexes = {
+        @Index(name = "idx_trainings_start_id", columnList = "start_time, id"),
+        @Index(name = "idx_trainings_user_start", columnList = "user_id, start_time"),
+        @Index(name = "idx_trainings_end_time", columnList = "end_time")
+})
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString
 public class Training {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "trainings_seq")
+    @SequenceGenerator(name = "trainings_seq", sequenceName = "trainings_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
+    @ToString.Exclude
     private User user;
 
     @Column(name = "start_time", nullable = false)
@@ -43,6 +49,10 @@ public class Training {
     @Column(name = "average_speed")
     private double averageSpeed;
 
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     public Training(
             final User user,
             final Date startTime,
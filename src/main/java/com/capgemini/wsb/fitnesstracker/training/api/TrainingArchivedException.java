@@ -0,0 +1,23 @@
+package com.capgemini.wsb.fitnesstracker.training.api;
+
+import com.capgemini.wsb.fitnesstracker.exception.api.BusinessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception indicating that the {@link Training} was moved to the cold archive, which is read-only, so the update was not applied.
+ * Will resolve to the {@link HttpStatus#CONFLICT} if handled by the Spring's exception handler.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+@SuppressWarnings("squid:S110")
+public class TrainingArchivedException extends BusinessException {
+
+    public TrainingArchivedException(String message) {
+        super(message);
+    }
+
+    public TrainingArchivedException(Long id) {
+        this("Training with ID=%s is archived and read-only".formatted(id));
+    }
+
+}
@@ -0,0 +1,23 @@
+package com.capgemini.wsb.fitnesstracker.training.api;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * Outcome of a single training of a batch upload or update.
+ *
+ * @param index   0-based position of the training in the uploaded batch
+ * @param status  outcome of the training
+ * @param id      ID of the created or updated training
+ * @param message reason why the training was not stored
+ */
+public record TrainingBatchItemDto(int index, Status status, @Nullable Long id, @Nullable String message) {
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        CONFLICT,
+        NOT_FOUND,
+        REJECTED
+    }
+
+}
@@ -0,0 +1,13 @@
+package com.capgemini.wsb.fitnesstracker.training.api;
+
+import java.util.List;
+
+/**
+ * Summary of a batch upload of trainings.
+ *
+ * @param created  number of stored trainings
+ * @param rejected number of trainings that were not stored
+ * @param items    outcome of every uploaded training, in the order of the batch
+ */
+public record TrainingBatchResultDto(int created, int rejected, List<TrainingBatchItemDto> items) {
+}
@@ -0,0 +1,14 @@
+package com.capgemini.wsb.fitnesstracker.training.api;
+
+import java.util.List;
+
+/**
+ * Summary of a batch update of trainings.
+ *
+ * @param updated   number of updated trainings
+ * @param conflicts number of trainings that were not updated, because they do not have the expected version
+ * @param rejected  number of trainings that were not updated for other reasons
+ * @param items     outcome of every update, in the order of the batch
+ */
+public record TrainingBatchUpdateResultDto(int updated, int conflicts, int rejected, List<TrainingBatchItemDto> items) {
+}
@@ -0,0 +1,54 @@
+package com.capgemini.wsb.fitnesstracker.training.api;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Position in the list of trainings ordered by start time and ID, used for keyset pagination.
+ * Clients receive it as an opaque URL-safe token.
+ *
+ * @param startTime start time of the last training of the previous page
+ * @param id        ID of the last training of the previous page
+ */
+public record TrainingCursor(Date startTime, Long id) {
+
+    /**
+     * Creates the cursor pointing right after the given training.
+     *
+     * @param training the last training of a page
+     * @return cursor of the next page
+     */
+    public static TrainingCursor after(TrainingDto training) {
+        return new TrainingCursor(training.startTime, training.id);
+    }
+
+    /**
+     * Encodes the cursor as an opaque token.
+     *
+     * @return URL-safe token representing the cursor
+     */
+    public String encode() {
+        String value = startTime.getTime() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token created by {@link #encode()}.
+     *
+     * @param token the token received from the client
+     * @return the decoded cursor
+     * @throws IllegalArgumentException if the token is not a valid cursor
+     */
+    public static TrainingCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf(':');
+            return new TrainingCursor(new Date(Long.parseLong(value.substring(0, separator))),
+                                      Long.valueOf(value.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+
+}
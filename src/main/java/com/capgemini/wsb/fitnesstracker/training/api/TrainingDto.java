@@ -22,4 +22,6 @@ public class TrainingDto{
     public ActivityType activityType;
     public double distance;
     public double averageSpeed;
+    @Nullable
+    public Long version;
 }
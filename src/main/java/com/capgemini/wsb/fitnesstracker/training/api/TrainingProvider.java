@@ -2,10 +2,13 @@ package com.capgemini.wsb.fitnesstracker.training.api;
 
 import com.capgemini.wsb.fitnesstracker.training.internal.ActivityType;
 import com.capgemini.wsb.fitnesstracker.user.api.User;
+import jakarta.annotation.Nullable;
 
+import java.time.LocalDate;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface TrainingProvider {
 
@@ -25,6 +28,22 @@ public interface TrainingProvider {
      */
     List<TrainingDto> findAllTrainings();
 
+    /**
+     * Retrieves a single page of trainings ordered by start time and ID, using the last seen training as the cursor.
+     *
+     * @param cursor position of the last training of the previous page, or {@code null} for the first page
+     * @param limit  maximum number of trainings to return
+     * @return A list of at most {@code limit} trainings following the cursor
+     */
+    List<TrainingDto> findTrainingsAfter(@Nullable TrainingCursor cursor, int limit);
+
+    /**
+     * Invokes the action for every training, ordered by start time and ID, without loading all of them into memory.
+     *
+     * @param action the action to be invoked for every training
+     */
+    void forEachTraining(Consumer<TrainingDto> action);
+
     /**
      * Retrieves trainings filtered by a specific activity type.
      *
@@ -33,6 +52,16 @@ public interface TrainingProvider {
      */
     List<TrainingDto> findTrainingsByActivityType(ActivityType activityType);
 
+    /**
+     * Retrieves trainings of a specific activity type started within a range of days.
+     *
+     * @param activityType the type of activity to filter trainings
+     * @param from         the first day of the range, or {@code null} for no lower bound
+     * @param to           the last day of the range (inclusive), or {@code null} for no upper bound
+     * @return A list of {@link TrainingDto} containing matching trainings
+     */
+    List<TrainingDto> findTrainingsByActivityType(ActivityType activityType, @Nullable LocalDate from, @Nullable LocalDate to);
+
     /**
      * Retrieves trainings that were finished after the specified time.
      *
@@ -49,4 +78,23 @@ public interface TrainingProvider {
      */
     List<TrainingDto> findTrainingsByUserId(Long userId);
 
+    /**
+     * Retrieves the most recent trainings of a specific user.
+     *
+     * @param userId the ID of the user whose trainings are to be retrieved
+     * @param limit  the maximum number of trainings
+     * @return A list of {@link TrainingDto} ordered by start time, newest first
+     */
+    List<TrainingDto> findRecentTrainingsByUserId(Long userId, int limit);
+
+    /**
+     * Retrieves trainings of a specific user started within the given time range, ordered by start time.
+     *
+     * @param userId the ID of the user whose trainings are to be retrieved
+     * @param from   the inclusive lower bound of the start time, or {@code null} for no lower bound
+     * @param to     the exclusive upper bound of the start time, or {@code null} for no upper bound
+     * @return A list of {@link TrainingDto} containing the user's trainings started within the range
+     */
+    List<TrainingDto> findTrainingsByUserIdBetween(Long userId, @Nullable Date from, @Nullable Date to);
+
 }
@@ -1,5 +1,8 @@
 package com.capgemini.wsb.fitnesstracker.training.api;
 
+import com.capgemini.wsb.fitnesstracker.analytics.api.TrainingAggregate;
+import com.capgemini.wsb.fitnesstracker.analytics.api.TrainingAnalytics;
+import com.capgemini.wsb.fitnesstracker.analytics.api.TrainingFilter;
 import com.capgemini.wsb.fitnesstracker.mail.api.EmailDto;
 import com.capgemini.wsb.fitnesstracker.mail.api.EmailSender;
 import com.capgemini.wsb.fitnesstracker.statistics.api.Statistics;
@@ -11,6 +14,7 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
@@ -21,6 +25,7 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 
@@ -32,19 +37,25 @@ public class TrainingReportService {
     private final UserProvider userProvider;
     private final JavaMailSender mailSender;
     private final TrainingRepository trainingRepository;
+    private final ObjectProvider<TrainingAnalytics> trainingAnalytics;
 
     /**
      * Generates and sends monthly reports for all users.
+     * If the in-memory analytics engine is enabled, the trainings of all users are counted in a single scan of it.
      */
     public void generateAndSendMonthlyReports() {
         List<User> users = userProvider.findAllUsers();
-        for (User user : users) {
-            Date startOfMonth = convertToDate(LocalDate.now().minusMonths(1).withDayOfMonth(1).atStartOfDay());
-            Date endOfMonth = convertToDate(LocalDate.now().withDayOfMonth(1).atStartOfDay());
-
-            List<Training> lastMonthTrainings = trainingRepository.findAllByUserIdAndStartTimeBetween(user.getId(), startOfMonth, endOfMonth);
+        Date startOfMonth = convertToDate(LocalDate.now().minusMonths(1).withDayOfMonth(1).atStartOfDay());
+        Date endOfMonth = convertToDate(LocalDate.now().withDayOfMonth(1).atStartOfDay());
+        TrainingAnalytics analytics = trainingAnalytics.getIfAvailable();
+        Map<Long, TrainingAggregate> aggregates = analytics == null
+                ? Map.of()
+                : analytics.aggregateByUser(TrainingFilter.startedBetween(startOfMonth, endOfMonth));
 
-            int totalTrainings = lastMonthTrainings.size();
+        for (User user : users) {
+            int totalTrainings = analytics != null
+                    ? (int) aggregates.getOrDefault(user.getId(), TrainingAggregate.EMPTY).count()
+                    : trainingRepository.findAllByUserIdAndStartTimeBetween(user.getId(), startOfMonth, endOfMonth).size();
 
             String subject = "Monthly Training Report";
             String content = generateReportContent(user, totalTrainings);
@@ -0,0 +1,19 @@
+package com.capgemini.wsb.fitnesstracker.training.api;
+
+/**
+ * A single sample of a training recorded by a device, or the mean of the samples of a downsampled interval.
+ *
+ * @param timestamp    time of the sample, or the start of the interval, in epoch milliseconds
+ * @param heartRate    heart rate in beats per minute
+ * @param speed        speed in km/h, stored with a precision of 0.01
+ * @param elevation    elevation in meters, stored with a precision of 0.1
+ * @param latitude     latitude in degrees, stored with a precision of 1e-7
+ * @param longitude    longitude in degrees, stored with a precision of 1e-7
+ */
+public record TrainingSampleDto(long timestamp,
+                                int heartRate,
+                                double speed,
+                                double elevation,
+                                double latitude,
+                                double longitude) {
+}
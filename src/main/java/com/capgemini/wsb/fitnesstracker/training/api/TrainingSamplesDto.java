@@ -0,0 +1,19 @@
+package com.capgemini.wsb.fitnesstracker.training.api;
+
+import jakarta.annotation.Nullable;
+
+import java.util.List;
+
+/**
+ * Sample series of a training.
+ *
+ * @param trainingId       ID of the training
+ * @param sampleCount      number of stored samples
+ * @param resolutionMillis length of the intervals the samples were downsampled to, or null for the stored samples
+ * @param samples          the stored samples, or one mean sample per interval
+ */
+public record TrainingSamplesDto(Long trainingId,
+                                 int sampleCount,
+                                 @Nullable Long resolutionMillis,
+                                 List<TrainingSampleDto> samples) {
+}
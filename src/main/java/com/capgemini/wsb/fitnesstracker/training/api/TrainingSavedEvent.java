@@ -0,0 +1,10 @@
+package com.capgemini.wsb.fitnesstracker.training.api;
+
+/**
+ * Published when a training was created or updated.
+ * Listeners interested only in committed data should use {@code @TransactionalEventListener}.
+ *
+ * @param training the saved training
+ */
+public record TrainingSavedEvent(Training training) {
+}
@@ -13,11 +13,32 @@ public interface TrainingService {
 
     /**
      * Updates an existing training with the given ID based on the provided update data.
+     * Only the fields provided in the update are changed.
      *
      * @param trainingId the ID of the training to be updated
      * @param trainingUpdateDto the data to update the training
      * @return The updated {@link TrainingDto} containing the new details of the training
+     * @throws TrainingVersionConflictException if the training does not have the version expected by the update
+     * @throws TrainingArchivedException if the training was moved to the read-only archive
      */
     TrainingDto updateTraining(Long trainingId, TrainingUpdateDto trainingUpdateDto);
 
+    /**
+     * Counts the trainings of the user stored in the database.
+     *
+     * @param userId the ID of the user
+     * @return number of trainings of the user
+     */
+    long countTrainingsOfUser(Long userId);
+
+    /**
+     * Deletes at most {@code limit} trainings of the user in a single transaction, so that the trainings of very large
+     * accounts can be removed in chunks.
+     *
+     * @param userId the ID of the user
+     * @param limit maximum number of trainings to delete
+     * @return number of deleted trainings, {@code 0} once the user has no trainings left
+     */
+    int deleteTrainingsOfUser(Long userId, int limit);
+
 }
@@ -1,15 +1,38 @@
 package com.capgemini.wsb.fitnesstracker.training.api;
 
+import com.capgemini.wsb.fitnesstracker.training.internal.ActivityType;
+import com.fasterxml.jackson.annotation.JsonFormat;
 import jakarta.annotation.Nullable;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.util.Date;
+
+/**
+ * Partial update of a training. Fields left null are not changed.
+ * If the version is given, the update is applied only if the training still has that version.
+ */
 @Getter
 @Setter
+@NoArgsConstructor
 @AllArgsConstructor
 public class TrainingUpdateDto {
     @Nullable
     public Long id;
-    public double distance;
-}
\ No newline at end of file
+    @Nullable
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
+    public Date startTime;
+    @Nullable
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
+    public Date endTime;
+    @Nullable
+    public ActivityType activityType;
+    @Nullable
+    public Double distance;
+    @Nullable
+    public Double averageSpeed;
+    @Nullable
+    public Long version;
+}
@@ -0,0 +1,23 @@
+package com.capgemini.wsb.fitnesstracker.training.api;
+
+import com.capgemini.wsb.fitnesstracker.exception.api.BusinessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception indicating that the {@link Training} was changed concurrently, so the update was not applied.
+ * Will resolve to the {@link HttpStatus#CONFLICT} if handled by the Spring's exception handler.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+@SuppressWarnings("squid:S110")
+public class TrainingVersionConflictException extends BusinessException {
+
+    public TrainingVersionConflictException(String message) {
+        super(message);
+    }
+
+    public TrainingVersionConflictException(Long id, Long expectedVersion, Long actualVersion) {
+        this("Training with ID=%s has version %s, expected %s".formatted(id, actualVersion, expectedVersion));
+    }
+
+}
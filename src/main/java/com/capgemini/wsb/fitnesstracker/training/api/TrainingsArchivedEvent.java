@@ -0,0 +1,13 @@
+package com.capgemini.wsb.fitnesstracker.training.api;
+
+import java.util.List;
+
+/**
+ * Published by the training archive for every chunk of trainings it moves out of the {@code trainings} table,
+ * inside the transaction deleting them from the table. The trainings stay readable through {@link TrainingProvider};
+ * only copies of the table, which are rebuilt from it on startup, should drop them.
+ *
+ * @param trainingIds IDs of the archived trainings
+ */
+public record TrainingsArchivedEvent(List<Long> trainingIds) {
+}
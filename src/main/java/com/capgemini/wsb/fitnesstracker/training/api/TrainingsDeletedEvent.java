@@ -0,0 +1,14 @@
+package com.capgemini.wsb.fitnesstracker.training.api;
+
+import java.util.List;
+
+/**
+ * Published by {@link TrainingService#deleteTrainingsOfUser(Long, int)} for every chunk of a user's trainings it deletes,
+ * inside the deleting transaction. Unlike {@link UserTrainingsDeletedEvent}, other trainings of the user may still exist,
+ * so listeners should forget only the listed trainings.
+ *
+ * @param userId      ID of the user whose trainings were deleted
+ * @param trainingIds IDs of the deleted trainings
+ */
+public record TrainingsDeletedEvent(Long userId, List<Long> trainingIds) {
+}
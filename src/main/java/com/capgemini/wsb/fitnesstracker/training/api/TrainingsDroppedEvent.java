@@ -0,0 +1,14 @@
+package com.capgemini.wsb.fitnesstracker.training.api;
+
+import java.util.Date;
+
+/**
+ * Published when all trainings started before a point in time were removed from the database at once,
+ * e.g. by dropping the partitions of old months.
+ * Published by the scheduled partition maintenance inside the transaction that drops the partitions and deletes
+ * the old rows of the default partition, so after-commit listeners only see it once the rows are really gone.
+ *
+ * @param startedBefore start time before which no trainings are left in the database
+ */
+public record TrainingsDroppedEvent(Date startedBefore) {
+}
@@ -0,0 +1,10 @@
+package com.capgemini.wsb.fitnesstracker.training.api;
+
+/**
+ * Published when trainings of a user were deleted with a bulk statement, e.g. when the user is deleted.
+ * Listeners interested only in committed data should use {@code @TransactionalEventListener}.
+ *
+ * @param userId ID of the user whose trainings were deleted
+ */
+public record UserTrainingsDeletedEvent(Long userId) {
+}
@@ -0,0 +1,34 @@
+package com.capgemini.wsb.fitnesstracker.training.internal;
+
+import com.capgemini.wsb.fitnesstracker.training.api.Training;
+
+import java.util.Comparator;
+
+/**
+ * Training moved from the database into the {@link TrainingArchive}. Times are epoch milliseconds.
+ */
+record ArchivedTraining(long id,
+                        long userId,
+                        long startTime,
+                        long endTime,
+                        ActivityType activityType,
+                        double distance,
+                        double averageSpeed) {
+
+    /**
+     * Order of the trainings listings: by start time, then by ID.
+     */
+    static final Comparator<ArchivedTraining> ORDER = Comparator.comparingLong(ArchivedTraining::startTime)
+                                                                .thenComparingLong(ArchivedTraining::id);
+
+    static ArchivedTraining of(Training training) {
+        return new ArchivedTraining(training.getId(),
+                                    training.getUser().getId(),
+                                    training.getStartTime().getTime(),
+                                    training.getEndTime().getTime(),
+                                    training.getActivityType(),
+                                    training.getDistance(),
+                                    training.getAverageSpeed());
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.capgemini.wsb.fitnesstracker.training.internal;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Records whether the transaction it was registered with committed.
+ * Completion is reported even when a callback after the commit throws, so the caller of the transaction can tell
+ * such a failure from a rolled back transaction.
+ */
+final class CommitTracker implements TransactionSynchronization {
+
+    private volatile boolean committed;
+
+    /**
+     * Registers the tracker with the current transaction. Must be called inside the transaction.
+     */
+    void register() {
+        TransactionSynchronizationManager.registerSynchronization(this);
+    }
+
+    boolean isCommitted() {
+        return committed;
+    }
+
+    @Override
+    public void afterCompletion(int status) {
+        committed = status == STATUS_COMMITTED;
+    }
+
+}
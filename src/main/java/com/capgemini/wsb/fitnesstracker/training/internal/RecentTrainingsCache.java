@@ -0,0 +1,256 @@
+package com.capgemini.wsb.fitnesstracker.training.internal;
+
+import com.capgemini.wsb.fitnesstracker.training.api.Training;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingDto;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingSavedEvent;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingsDeletedEvent;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingsDroppedEvent;
+import com.capgemini.wsb.fitnesstracker.training.api.UserTrainingsDeletedEvent;
+import com.capgemini.wsb.fitnesstracker.user.api.UserUpdatedEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * Bounded cache of the most recent trainings of every user, each held in a ring buffer of
+ * {@link TrainingProperties.Recent#getCapacity()} trainings, newest first.
+ * Users are loaded lazily on a miss and evicted least recently used first. Committed trainings are pushed into the
+ * buffer of their user if it is cached; saves whose user was not loaded (batch writes), deletions and changes of
+ * the user drop the buffer. Dropping old trainings of all users clears the cache.
+ * Hit, miss and eviction counts and the hit ratio are published as {@code training.recent.cache.*} metrics.
+ */
+@Component
+class RecentTrainingsCache {
+
+    /**
+     * Order of the buffers: by start time, then by ID, newest first.
+     */
+    private static final Comparator<TrainingDto> NEWEST_FIRST = Comparator.comparing((TrainingDto training) -> training.startTime)
+                                                                          .thenComparing(training -> training.id)
+                                                                          .reversed();
+
+    private final boolean enabled;
+
+    private final int capacity;
+
+    private final int maxUsers;
+
+    private final TrainingMapper trainingMapper;
+
+    private final LinkedHashMap<Long, RecentTrainings> trainingsByUser = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Incremented on every change, so that trainings loaded concurrently with a change are not cached.
+     */
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    RecentTrainingsCache(TrainingProperties trainingProperties, TrainingMapper trainingMapper, MeterRegistry meterRegistry) {
+        TrainingProperties.Recent properties = trainingProperties.getRecent();
+        this.enabled = properties.isEnabled();
+        this.capacity = Math.max(1, properties.getCapacity());
+        this.maxUsers = properties.getMaxUsers();
+        this.trainingMapper = trainingMapper;
+
+        FunctionCounter.builder("training.recent.cache.requests", hits, AtomicLong::get).tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("training.recent.cache.requests", misses, AtomicLong::get).tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("training.recent.cache.evictions", evictions, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("training.recent.cache.size", this, RecentTrainingsCache::size).register(meterRegistry);
+        Gauge.builder("training.recent.cache.hit.ratio", this, RecentTrainingsCache::hitRatio).register(meterRegistry);
+    }
+
+    /**
+     * Returns the most recent trainings of the user, loading and caching them on a miss.
+     *
+     * @param userId ID of the user
+     * @param limit  maximum number of trainings; requests for more than the buffer capacity are not cached
+     * @param loader loads the given number of most recent trainings of the user, newest first
+     * @return up to {@code limit} most recent trainings, newest first
+     */
+    List<TrainingDto> get(Long userId, int limit, BiFunction<Long, Integer, List<TrainingDto>> loader) {
+        if (!enabled || limit > capacity)
+            return loader.apply(userId, limit);
+
+        long loadGeneration;
+        synchronized (this) {
+            RecentTrainings cached = trainingsByUser.get(userId);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached.newest(limit);
+            }
+            misses.incrementAndGet();
+            loadGeneration = generation;
+        }
+
+        List<TrainingDto> loaded = loader.apply(userId, capacity);
+        RecentTrainings trainings = new RecentTrainings(capacity, loaded);
+        put(userId, trainings, loadGeneration);
+        return trainings.newest(limit);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onTrainingSaved(TrainingSavedEvent event) {
+        if (!enabled)
+            return;
+
+        Training training = event.training();
+        if (!Hibernate.isInitialized(training.getUser())) {
+            invalidate(training.getUser().getId());
+            return;
+        }
+        add(training.getUser().getId(), trainingMapper.toDto(training));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onUserTrainingsDeleted(UserTrainingsDeletedEvent event) {
+        if (enabled)
+            invalidate(event.userId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onTrainingsDeleted(TrainingsDeletedEvent event) {
+        if (enabled)
+            invalidate(event.userId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onUserUpdated(UserUpdatedEvent event) {
+        if (enabled)
+            invalidate(event.userId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    synchronized void onTrainingsDropped(TrainingsDroppedEvent event) {
+        generation++;
+        trainingsByUser.clear();
+    }
+
+    synchronized int size() {
+        return trainingsByUser.size();
+    }
+
+    private double hitRatio() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    private synchronized void add(Long userId, TrainingDto training) {
+        generation++;
+        RecentTrainings cached = trainingsByUser.get(userId);
+        if (cached != null && !cached.add(training))
+            trainingsByUser.remove(userId);
+    }
+
+    private synchronized void invalidate(Long userId) {
+        generation++;
+        trainingsByUser.remove(userId);
+    }
+
+    private synchronized void put(Long userId, RecentTrainings trainings, long loadGeneration) {
+        if (loadGeneration != generation)
+            return;
+
+        trainingsByUser.put(userId, trainings);
+        while (trainingsByUser.size() > maxUsers) {
+            trainingsByUser.remove(trainingsByUser.keySet().iterator().next());
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Ring buffer of the most recent trainings of a single user. Slot {@code head} holds the newest training.
+     * Not thread-safe; guarded by the cache.
+     */
+    private static final class RecentTrainings {
+
+        private final TrainingDto[] slots;
+
+        private int head;
+
+        private int size;
+
+        /**
+         * Whether the buffer holds all trainings of the user, so nothing older is missing from it.
+         */
+        private boolean complete;
+
+        private RecentTrainings(int capacity, List<TrainingDto> newestFirst) {
+            this.slots = new TrainingDto[capacity];
+            fill(newestFirst);
+            this.complete = newestFirst.size() < capacity;
+        }
+
+        private List<TrainingDto> newest(int limit) {
+            int count = Math.min(limit, size);
+            List<TrainingDto> trainings = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                trainings.add(slots[(head + i) % slots.length]);
+            }
+            return trainings;
+        }
+
+        /**
+         * Adds a created or updated training.
+         *
+         * @return false if the buffer can no longer tell which trainings are the most recent and has to be reloaded
+         */
+        private boolean add(TrainingDto training) {
+            boolean contained = false;
+            for (int i = 0; i < size && !contained; i++) {
+                contained = slots[(head + i) % slots.length].id.equals(training.id);
+            }
+
+            if (!contained && (size == 0 || NEWEST_FIRST.compare(training, slots[head]) < 0)) {
+                head = (head - 1 + slots.length) % slots.length;
+                slots[head] = training;
+                if (size < slots.length)
+                    size++;
+                else
+                    complete = false;
+                return true;
+            }
+
+            List<TrainingDto> trainings = newest(size);
+            trainings.removeIf(cached -> cached.id.equals(training.id));
+            int position = 0;
+            while (position < trainings.size() && NEWEST_FIRST.compare(trainings.get(position), training) < 0) {
+                position++;
+            }
+            if (position == trainings.size() && !complete)
+                return !contained;
+
+            trainings.add(position, training);
+            if (trainings.size() > slots.length) {
+                trainings.remove(trainings.size() - 1);
+                complete = false;
+            }
+            fill(trainings);
+            return true;
+        }
+
+        private void fill(List<TrainingDto> newestFirst) {
+            head = 0;
+            size = Math.min(newestFirst.size(), slots.length);
+            for (int i = 0; i < size; i++) {
+                slots[i] = newestFirst.get(i);
+            }
+        }
+    }
+
+}
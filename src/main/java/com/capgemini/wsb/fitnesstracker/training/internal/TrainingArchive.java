@@ -0,0 +1,618 @@
+package com.capgemini.wsb.fitnesstracker.training.internal;
+
+import com.capgemini.wsb.fitnesstracker.training.api.Training;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingsArchivedEvent;
+import com.capgemini.wsb.fitnesstracker.user.api.UserDeletedEvent;
+import jakarta.annotation.Nullable;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Cold archive of trainings that started more than {@link TrainingProperties.Archive#getRetention()} ago.
+ * Archived trainings are removed from the database and appended to one segment file per month (UTC) of their start time,
+ * as fixed-width {@value #RECORD_SIZE}-byte records read through a memory mapping of the file.
+ * Every segment keeps in-memory indexes of record positions by user and by training ID, rebuilt from the file on startup.
+ * <p>
+ * Records are written and forced to disk before the trainings are deleted from the database, so a failure in between
+ * leaves duplicates rather than losing data; readers drop duplicates by training ID.
+ * Archived trainings of deleted users are hidden by tombstones kept in a separate file.
+ * Every archived chunk is announced with a {@link TrainingsArchivedEvent}.
+ */
+@Component
+@Slf4j
+class TrainingArchive {
+
+    static final int RECORD_SIZE = 56;
+
+    private static final String SEGMENT_PREFIX = "trainings-";
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final String TOMBSTONES_FILE = "deleted-users.bin";
+
+    private static final ActivityType[] ACTIVITY_TYPES = ActivityType.values();
+
+    private final TrainingRepository trainingRepository;
+
+    private final TransactionTemplate transaction;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final TrainingProperties.Archive properties;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final NavigableMap<YearMonth, Segment> segments = new TreeMap<>();
+
+    private final Set<Long> deletedUsers = ConcurrentHashMap.newKeySet();
+
+    private FileChannel tombstones;
+
+    TrainingArchive(TrainingRepository trainingRepository,
+                    PlatformTransactionManager transactionManager,
+                    ApplicationEventPublisher eventPublisher,
+                    TrainingProperties trainingProperties) {
+        this.trainingRepository = trainingRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.properties = trainingProperties.getArchive();
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        if (!properties.isEnabled())
+            return;
+
+        Path directory = properties.getDirectory();
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                YearMonth month = YearMonth.parse(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                segments.put(month, Segment.open(month, file));
+            }
+        }
+
+        tombstones = FileChannel.open(directory.resolve(TOMBSTONES_FILE), CREATE, READ, WRITE);
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(tombstones.size() / Long.BYTES * Long.BYTES));
+        while (buffer.hasRemaining()) {
+            if (tombstones.read(buffer, buffer.position()) < 0)
+                break;
+        }
+        buffer.flip();
+        while (buffer.remaining() >= Long.BYTES) {
+            deletedUsers.add(buffer.getLong());
+        }
+        log.info("Training archive opened with {} segments and {} deleted users", segments.size(), deletedUsers.size());
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.channel.close();
+            }
+            if (tombstones != null)
+                tombstones.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    @Scheduled(cron = "${fitnesstracker.training.archive.cron:0 0 3 * * *}")
+    void scheduleArchiving() {
+        if (isEnabled())
+            archive();
+    }
+
+    /**
+     * Moves all trainings started before the retention cutoff from the database into the archive.
+     *
+     * @return number of archived trainings
+     * @throws IllegalStateException if the archive is disabled
+     */
+    synchronized int archive() {
+        if (!isEnabled())
+            throw new IllegalStateException("Training archive is disabled");
+
+        Date cutoff = Date.from(LocalDate.now().minus(properties.getRetention()).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        int chunkSize = Math.max(1, properties.getChunkSize());
+        int total = 0;
+        while (true) {
+            Integer archived = transaction.execute(status -> archiveChunk(cutoff, chunkSize));
+            if (archived == null || archived == 0)
+                break;
+            total += archived;
+        }
+        log.info("Archived {} trainings started before {}", total, cutoff);
+        return total;
+    }
+
+    /**
+     * Hides the archived trainings of the user once the deletion of the user commits.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    void onUserDeleted(UserDeletedEvent event) {
+        if (!isEnabled() || !deletedUsers.add(event.userId()))
+            return;
+
+        ByteBuffer record = ByteBuffer.allocate(Long.BYTES).putLong(0, event.userId());
+        lock.writeLock().lock();
+        try {
+            long position = tombstones.size();
+            while (record.hasRemaining()) {
+                position += tombstones.write(record, position);
+            }
+            tombstones.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    Optional<ArchivedTraining> findById(long trainingId) {
+        if (!isEnabled())
+            return Optional.empty();
+
+        lock.readLock().lock();
+        try {
+            for (Segment segment : segments.values()) {
+                int record = segment.recordOf(trainingId);
+                if (record >= 0 && !deletedUsers.contains(segment.userIdAt(record)))
+                    return Optional.of(segment.read(record));
+            }
+            return Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds archived trainings of the user through the per-user index of every segment.
+     *
+     * @param userId ID of the user
+     * @return trainings of the user, ordered by start time and ID
+     */
+    List<ArchivedTraining> findByUserId(long userId) {
+        if (!isEnabled() || deletedUsers.contains(userId))
+            return List.of();
+
+        List<ArchivedTraining> trainings = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Segment segment : segments.values()) {
+                Positions positions = segment.recordsByUser.get(userId);
+                if (positions == null)
+                    continue;
+                for (int i = 0; i < positions.size; i++) {
+                    trainings.add(segment.read(positions.values[i]));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return sortedDistinct(trainings);
+    }
+
+    /**
+     * Scans all segments for trainings matching the filter.
+     *
+     * @param filter condition on the archived trainings
+     * @return matching trainings, ordered by start time and ID
+     */
+    List<ArchivedTraining> findAll(Predicate<ArchivedTraining> filter) {
+        return findStartedBetween(Long.MIN_VALUE, Long.MAX_VALUE, filter);
+    }
+
+    /**
+     * Scans the segments of the months overlapping the half-open range for trainings started within it and matching the filter.
+     *
+     * @param from   inclusive lower bound of the start time, in epoch milliseconds
+     * @param to     exclusive upper bound of the start time, in epoch milliseconds
+     * @param filter condition on the archived trainings
+     * @return matching trainings, ordered by start time and ID
+     */
+    List<ArchivedTraining> findStartedBetween(long from, long to, Predicate<ArchivedTraining> filter) {
+        if (!isEnabled() || from >= to)
+            return List.of();
+
+        lock.readLock().lock();
+        try {
+            return scan(segments.subMap(monthOf(from), true, monthOf(to - 1), true).values(),
+                        training -> training.startTime() >= from && training.startTime() < to && filter.test(training));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Scans the segments holding trainings finished after the given time, skipping those that ended earlier as a whole.
+     *
+     * @param afterTime exclusive lower bound of the end time, in epoch milliseconds
+     * @return trainings finished after the given time, ordered by start time and ID
+     */
+    List<ArchivedTraining> findFinishedAfter(long afterTime) {
+        if (!isEnabled())
+            return List.of();
+
+        lock.readLock().lock();
+        try {
+            List<Segment> candidates = segments.values().stream().filter(segment -> segment.maxEndTime > afterTime).toList();
+            return scan(candidates, training -> training.endTime() > afterTime);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reads the trainings of the segments matching the filter. Must be called with the read lock held.
+     */
+    private List<ArchivedTraining> scan(Collection<Segment> candidates, Predicate<ArchivedTraining> filter) {
+        List<ArchivedTraining> trainings = new ArrayList<>();
+        for (Segment segment : candidates) {
+            for (int record = 0; record < segment.count; record++) {
+                if (deletedUsers.contains(segment.userIdAt(record)))
+                    continue;
+                ArchivedTraining training = segment.read(record);
+                if (filter.test(training))
+                    trainings.add(training);
+            }
+        }
+        return sortedDistinct(trainings);
+    }
+
+    /**
+     * Finds a page of archived trainings ordered by start time and ID. Only segments from the month of the cursor on are read.
+     *
+     * @param startTime start time of the last training of the previous page, or {@code null} for the first page
+     * @param id        ID of the last training of the previous page, ignored for the first page
+     * @param limit     maximum number of trainings to return
+     * @return at most {@code limit} trainings following the cursor
+     */
+    List<ArchivedTraining> findAfter(@Nullable Date startTime, @Nullable Long id, int limit) {
+        if (!isEnabled())
+            return List.of();
+
+        List<ArchivedTraining> trainings = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Map<YearMonth, Segment> candidates = startTime == null ? segments : segments.tailMap(monthOf(startTime.getTime()), true);
+            for (Segment segment : candidates.values()) {
+                for (ArchivedTraining training : sortedRecords(segment)) {
+                    if (startTime == null || training.startTime() > startTime.getTime()
+                            || (training.startTime() == startTime.getTime() && training.id() > id))
+                        trainings.add(training);
+                }
+                if (trainings.size() >= limit)
+                    break;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return trainings.size() > limit ? trainings.subList(0, limit) : trainings;
+    }
+
+    /**
+     * Iterates over all archived trainings ordered by start time and ID, holding only one month of them in memory.
+     *
+     * @return iterator over all archived trainings
+     */
+    Iterator<ArchivedTraining> iterator() {
+        return iterator(Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Iterates over the archived trainings started within the half-open range, ordered by start time and ID,
+     * holding only one month of them in memory. Only the segments of the months overlapping the range are read.
+     *
+     * @param from inclusive lower bound of the start time, in epoch milliseconds
+     * @param to   exclusive upper bound of the start time, in epoch milliseconds
+     * @return iterator over the archived trainings started within the range
+     */
+    Iterator<ArchivedTraining> iterator(long from, long to) {
+        if (!isEnabled() || from >= to)
+            return Collections.emptyIterator();
+
+        List<Segment> snapshot;
+        lock.readLock().lock();
+        try {
+            snapshot = List.copyOf(segments.subMap(monthOf(from), true, monthOf(to - 1), true).values());
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return new Iterator<>() {
+
+            private final Iterator<Segment> remainingSegments = snapshot.iterator();
+
+            private Iterator<ArchivedTraining> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && remainingSegments.hasNext()) {
+                    Segment segment = remainingSegments.next();
+                    lock.readLock().lock();
+                    try {
+                        current = sortedRecords(segment).stream()
+                                                        .filter(training -> training.startTime() >= from && training.startTime() < to)
+                                                        .iterator();
+                    } finally {
+                        lock.readLock().unlock();
+                    }
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public ArchivedTraining next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return current.next();
+            }
+        };
+    }
+
+    private int archiveChunk(Date cutoff, int chunkSize) {
+        List<Training> trainings = trainingRepository.findAllByStartTimeBeforeOrderByIdAsc(cutoff, PageRequest.ofSize(chunkSize));
+        if (trainings.isEmpty())
+            return 0;
+
+        Map<YearMonth, List<ArchivedTraining>> byMonth = trainings.stream()
+                .map(ArchivedTraining::of)
+                .collect(Collectors.groupingBy(training -> monthOf(training.startTime()), TreeMap::new, Collectors.toList()));
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<YearMonth, List<ArchivedTraining>> month : byMonth.entrySet()) {
+                Segment segment = segments.get(month.getKey());
+                if (segment == null) {
+                    segment = Segment.open(month.getKey(), properties.getDirectory().resolve(SEGMENT_PREFIX + month.getKey() + SEGMENT_SUFFIX));
+                    segments.put(month.getKey(), segment);
+                }
+                segment.append(month.getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<Long> ids = trainings.stream().map(Training::getId).toList();
+        trainingRepository.bulkDeleteByIdIn(ids);
+        eventPublisher.publishEvent(new TrainingsArchivedEvent(ids));
+        return trainings.size();
+    }
+
+    /**
+     * Reads all visible records of the segment ordered by start time and ID. Must be called with the read lock held.
+     */
+    private List<ArchivedTraining> sortedRecords(Segment segment) {
+        List<ArchivedTraining> trainings = new ArrayList<>(segment.count);
+        for (int record = 0; record < segment.count; record++) {
+            if (!deletedUsers.contains(segment.userIdAt(record)))
+                trainings.add(segment.read(record));
+        }
+        return sortedDistinct(trainings);
+    }
+
+    private static List<ArchivedTraining> sortedDistinct(List<ArchivedTraining> trainings) {
+        trainings.sort(ArchivedTraining.ORDER);
+        List<ArchivedTraining> distinct = new ArrayList<>(trainings.size());
+        for (ArchivedTraining training : trainings) {
+            if (distinct.isEmpty() || distinct.get(distinct.size() - 1).id() != training.id())
+                distinct.add(training);
+        }
+        return distinct;
+    }
+
+    private static YearMonth monthOf(long epochMillis) {
+        return YearMonth.from(Instant.ofEpochMilli(epochMillis).atZone(ZoneOffset.UTC));
+    }
+
+    /**
+     * Append-only file of the trainings started in one month.
+     * Record layout: id, user ID, start time, end time (longs), activity type ordinal (int), padding (int), distance, average speed (doubles).
+     */
+    private static final class Segment {
+
+        private final FileChannel channel;
+
+        private final Map<Long, Positions> recordsByUser = new HashMap<>();
+
+        private long[] sortedIds = new long[0];
+
+        private int[] recordsBySortedId = new int[0];
+
+        private MappedByteBuffer buffer;
+
+        private int count;
+
+        /**
+         * Latest end time of the trainings in the segment, which may end in a later month than they started.
+         */
+        private long maxEndTime = Long.MIN_VALUE;
+
+        private Segment(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        static Segment open(YearMonth month, Path file) throws IOException {
+            FileChannel channel = FileChannel.open(file, CREATE, READ, WRITE);
+            long complete = channel.size() / RECORD_SIZE * RECORD_SIZE;
+            if (complete != channel.size()) {
+                log.warn("Dropping incomplete record at the end of archive segment {}", month);
+                channel.truncate(complete);
+            }
+
+            Segment segment = new Segment(channel);
+            segment.count = Math.toIntExact(complete / RECORD_SIZE);
+            segment.remap();
+            for (int record = 0; record < segment.count; record++) {
+                segment.index(record);
+            }
+            segment.indexIds(0);
+            return segment;
+        }
+
+        void append(List<ArchivedTraining> trainings) throws IOException {
+            ByteBuffer records = ByteBuffer.allocate(trainings.size() * RECORD_SIZE);
+            for (ArchivedTraining training : trainings) {
+                records.putLong(training.id())
+                       .putLong(training.userId())
+                       .putLong(training.startTime())
+                       .putLong(training.endTime())
+                       .putInt(training.activityType().ordinal())
+                       .putInt(0)
+                       .putDouble(training.distance())
+                       .putDouble(training.averageSpeed());
+            }
+            records.flip();
+
+            long position = (long) count * RECORD_SIZE;
+            while (records.hasRemaining()) {
+                position += channel.write(records, position);
+            }
+            channel.force(false);
+
+            int first = count;
+            count += trainings.size();
+            remap();
+            for (int record = first; record < count; record++) {
+                index(record);
+            }
+            indexIds(first);
+        }
+
+        /**
+         * Finds the record of the training through a binary search of the ID index.
+         *
+         * @return the record, or {@code -1} if the training is not in this segment
+         */
+        int recordOf(long trainingId) {
+            int position = Arrays.binarySearch(sortedIds, trainingId);
+            return position < 0 ? -1 : recordsBySortedId[position];
+        }
+
+        long idAt(int record) {
+            return buffer.getLong(record * RECORD_SIZE);
+        }
+
+        long userIdAt(int record) {
+            return buffer.getLong(record * RECORD_SIZE + 8);
+        }
+
+        ArchivedTraining read(int record) {
+            int offset = record * RECORD_SIZE;
+            return new ArchivedTraining(buffer.getLong(offset),
+                                        buffer.getLong(offset + 8),
+                                        buffer.getLong(offset + 16),
+                                        buffer.getLong(offset + 24),
+                                        ACTIVITY_TYPES[buffer.getInt(offset + 32)],
+                                        buffer.getDouble(offset + 40),
+                                        buffer.getDouble(offset + 48));
+        }
+
+        private void remap() throws IOException {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, (long) count * RECORD_SIZE);
+        }
+
+        private void index(int record) {
+            recordsByUser.computeIfAbsent(userIdAt(record), userId -> new Positions()).add(record);
+            maxEndTime = Math.max(maxEndTime, buffer.getLong(record * RECORD_SIZE + 24));
+        }
+
+        /**
+         * Merges the records from {@code first} on into the ID index, kept as parallel arrays sorted by training ID.
+         */
+        private void indexIds(int first) {
+            int[] added = IntStream.range(first, count)
+                                   .boxed()
+                                   .sorted(Comparator.comparingLong(this::idAt))
+                                   .mapToInt(Integer::intValue)
+                                   .toArray();
+            long[] ids = new long[count];
+            int[] records = new int[count];
+            int existing = 0;
+            int next = 0;
+            for (int position = 0; position < count; position++) {
+                if (next == added.length || (existing < first && sortedIds[existing] <= idAt(added[next]))) {
+                    ids[position] = sortedIds[existing];
+                    records[position] = recordsBySortedId[existing++];
+                } else {
+                    ids[position] = idAt(added[next]);
+                    records[position] = added[next++];
+                }
+            }
+            sortedIds = ids;
+            recordsBySortedId = records;
+        }
+
+    }
+
+    private static final class Positions {
+
+        private int[] values = new int[8];
+
+        private int size;
+
+        void add(int position) {
+            if (size == values.length)
+                values = Arrays.copyOf(values, size * 2);
+            values[size++] = position;
+        }
+
+    }
+
+}
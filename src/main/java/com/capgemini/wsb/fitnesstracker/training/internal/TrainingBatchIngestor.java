@@ -0,0 +1,159 @@
+package com.capgemini.wsb.fitnesstracker.training.internal;
+
+import com.capgemini.wsb.fitnesstracker.training.api.Training;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingBatchItemDto;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingBatchItemDto.Status;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingBatchResultDto;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingDto;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingSavedEvent;
+import com.capgemini.wsb.fitnesstracker.user.api.User;
+import com.capgemini.wsb.fitnesstracker.user.internal.UserRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Stores trainings uploaded in batches, e.g. by a wearable device sync.
+ * All referenced users are resolved with a single set-based query and the whole batch is validated up front;
+ * valid trainings are then inserted in chunks of {@link TrainingProperties#getBatchChunkSize()}, each using
+ * JDBC batching and committed in its own transaction. A failing chunk rejects only its own trainings; a chunk that was
+ * committed is reported as created even if a callback after its commit fails, so a retry does not duplicate it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class TrainingBatchIngestor {
+
+    private final TrainingRepository trainingRepository;
+
+    private final UserRepository userRepository;
+
+    private final TrainingProperties trainingProperties;
+
+    private final EntityManager entityManager;
+
+    private final PlatformTransactionManager transactionManager;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Stores the uploaded trainings.
+     *
+     * @param trainings the uploaded trainings
+     * @return the per-training summary of the upload
+     * @throws IllegalArgumentException if the batch is larger than {@link TrainingProperties#getMaxBatchSize()}
+     */
+    TrainingBatchResultDto ingest(List<TrainingDto> trainings) {
+        if (trainings.size() > trainingProperties.getMaxBatchSize())
+            throw new IllegalArgumentException("Batch of " + trainings.size() + " trainings exceeds the maximum of " + trainingProperties.getMaxBatchSize());
+
+        Set<Long> userIds = new HashSet<>();
+        for (TrainingDto training : trainings) {
+            if (training != null && training.user != null && training.user.id() != null)
+                userIds.add(training.user.id());
+        }
+        Set<Long> existingUserIds = userIds.isEmpty() ? Set.of() : userRepository.findExistingIds(userIds);
+
+        TrainingBatchItemDto[] items = new TrainingBatchItemDto[trainings.size()];
+        List<Integer> valid = new ArrayList<>();
+        for (int i = 0; i < trainings.size(); i++) {
+            String error = validate(trainings.get(i), existingUserIds);
+            if (error == null)
+                valid.add(i);
+            else
+                items[i] = new TrainingBatchItemDto(i, Status.REJECTED, null, error);
+        }
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int chunkSize = Math.max(1, trainingProperties.getBatchChunkSize());
+        for (int from = 0; from < valid.size(); from += chunkSize) {
+            List<Integer> chunk = valid.subList(from, Math.min(from + chunkSize, valid.size()));
+            CommitTracker commit = new CommitTracker();
+            List<TrainingBatchItemDto> stored = new ArrayList<>(chunk.size());
+            try {
+                transaction.executeWithoutResult(status -> {
+                    commit.register();
+                    stored.addAll(insertChunk(trainings, chunk));
+                });
+            } catch (RuntimeException e) {
+                if (!commit.isCommitted()) {
+                    // the chunk was rolled back, so only its trainings are rejected and the later chunks are still inserted
+                    log.warn("Batch insert of {} trainings failed", chunk.size(), e);
+                    String error = "Batch failed: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+                    chunk.forEach(index -> items[index] = new TrainingBatchItemDto(index, Status.REJECTED, null, error));
+                    continue;
+                }
+                log.error("Stored batch of {} trainings, but a callback after its commit failed", chunk.size(), e);
+            }
+            stored.forEach(item -> items[item.index()] = item);
+        }
+
+        List<TrainingBatchItemDto> results = List.of(items);
+        int created = (int) results.stream().filter(item -> item.status() == Status.CREATED).count();
+        log.info("Stored {} of {} uploaded trainings", created, results.size());
+        return new TrainingBatchResultDto(created, results.size() - created, results);
+    }
+
+    private List<TrainingBatchItemDto> insertChunk(List<TrainingDto> trainings, List<Integer> chunk) {
+        List<Training> entities = new ArrayList<>(chunk.size());
+        for (int index : chunk) {
+            TrainingDto dto = trainings.get(index);
+            entities.add(new Training(
+                    entityManager.getReference(User.class, dto.user.id()),
+                    dto.startTime,
+                    dto.endTime,
+                    dto.activityType,
+                    dto.distance,
+                    dto.averageSpeed));
+        }
+        trainingRepository.saveAll(entities);
+        trainingRepository.flush();
+        entities.forEach(training -> eventPublisher.publishEvent(new TrainingSavedEvent(training)));
+        entityManager.clear();
+
+        List<TrainingBatchItemDto> stored = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            stored.add(new TrainingBatchItemDto(chunk.get(i), Status.CREATED, entities.get(i).getId(), null));
+        }
+        return stored;
+    }
+
+    private static String validate(TrainingDto training, Set<Long> existingUserIds) {
+        if (training == null)
+            return "Training is missing";
+        if (training.user == null || training.user.id() == null)
+            return "User ID is required";
+        if (!existingUserIds.contains(training.user.id()))
+            return "User " + training.user.id() + " not found";
+        return validateFields(training);
+    }
+
+    /**
+     * Validates a new training without checking that its user exists.
+     *
+     * @param training the new training
+     * @return the reason why the training is invalid, or null if it is valid
+     */
+    static String validateFields(TrainingDto training) {
+        if (training.user == null || training.user.id() == null)
+            return "User ID is required";
+        if (training.startTime == null || training.endTime == null || training.activityType == null)
+            return "Start time, end time and activity type are required";
+        if (training.endTime.before(training.startTime))
+            return "End time must not be before start time";
+        if (training.distance < 0 || training.averageSpeed < 0)
+            return "Distance and average speed must not be negative";
+        return null;
+    }
+
+}
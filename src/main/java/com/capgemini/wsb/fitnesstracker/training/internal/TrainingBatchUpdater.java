@@ -0,0 +1,125 @@
+package com.capgemini.wsb.fitnesstracker.training.internal;
+
+import com.capgemini.wsb.fitnesstracker.training.api.Training;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingBatchItemDto;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingBatchItemDto.Status;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingBatchUpdateResultDto;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingSavedEvent;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingUpdateDto;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingVersionConflictException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Applies many partial training updates at once, e.g. edits synced from a watch.
+ * All trainings are loaded with a single set-based query and updated in one transaction, flushed as versioned
+ * JDBC batch updates. Updates carrying a version that no longer matches are reported as conflicts; if a training
+ * is changed concurrently between loading and flushing, the whole batch is rolled back and attempted again,
+ * up to {@link TrainingProperties#getBatchUpdateAttempts()} times.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class TrainingBatchUpdater {
+
+    private final TrainingRepository trainingRepository;
+
+    private final TrainingMapper trainingMapper;
+
+    private final TrainingProperties trainingProperties;
+
+    private final PlatformTransactionManager transactionManager;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Applies the updates. Every update must carry the ID of the training it changes.
+     *
+     * @param updates the updates to be applied
+     * @return the per-update summary of the batch
+     * @throws IllegalArgumentException if the batch is larger than {@link TrainingProperties#getMaxBatchSize()}
+     * @throws TrainingVersionConflictException if the batch kept conflicting with concurrent changes
+     */
+    TrainingBatchUpdateResultDto update(List<TrainingUpdateDto> updates) {
+        if (updates.size() > trainingProperties.getMaxBatchSize())
+            throw new IllegalArgumentException("Batch of " + updates.size() + " updates exceeds the maximum of " + trainingProperties.getMaxBatchSize());
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int attempts = Math.max(1, trainingProperties.getBatchUpdateAttempts());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                List<TrainingBatchItemDto> results = transaction.execute(status -> applyAll(updates));
+                return summarize(results);
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt == attempts)
+                    throw new TrainingVersionConflictException("Batch of " + updates.size() + " updates conflicted with concurrent changes " + attempts + " times");
+                log.debug("Batch update of {} trainings conflicted with a concurrent change, attempt {} of {}", updates.size(), attempt, attempts);
+            }
+        }
+    }
+
+    private List<TrainingBatchItemDto> applyAll(List<TrainingUpdateDto> updates) {
+        Set<Long> ids = new HashSet<>();
+        for (TrainingUpdateDto update : updates) {
+            if (update != null && update.id != null)
+                ids.add(update.id);
+        }
+        Map<Long, Training> trainings = trainingRepository.findAllById(ids)
+                                                          .stream()
+                                                          .collect(Collectors.toMap(Training::getId, Function.identity()));
+
+        List<TrainingBatchItemDto> results = new ArrayList<>(updates.size());
+        List<Training> updated = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < updates.size(); i++) {
+            TrainingUpdateDto update = updates.get(i);
+            if (update == null || update.id == null) {
+                results.add(new TrainingBatchItemDto(i, Status.REJECTED, null, "Training ID is required"));
+                continue;
+            }
+            if (!seen.add(update.id)) {
+                results.add(new TrainingBatchItemDto(i, Status.REJECTED, update.id, "Training is updated more than once in the batch"));
+                continue;
+            }
+            Training training = trainings.get(update.id);
+            if (training == null) {
+                results.add(new TrainingBatchItemDto(i, Status.NOT_FOUND, update.id, "Training not found"));
+                continue;
+            }
+            try {
+                trainingMapper.applyUpdate(training, update);
+                updated.add(training);
+                results.add(new TrainingBatchItemDto(i, Status.UPDATED, update.id, null));
+            } catch (TrainingVersionConflictException e) {
+                results.add(new TrainingBatchItemDto(i, Status.CONFLICT, update.id, e.getMessage()));
+            } catch (IllegalArgumentException e) {
+                results.add(new TrainingBatchItemDto(i, Status.REJECTED, update.id, e.getMessage()));
+            }
+        }
+
+        trainingRepository.flush();
+        updated.forEach(training -> eventPublisher.publishEvent(new TrainingSavedEvent(training)));
+        return results;
+    }
+
+    private static TrainingBatchUpdateResultDto summarize(List<TrainingBatchItemDto> results) {
+        int updated = (int) results.stream().filter(item -> item.status() == Status.UPDATED).count();
+        int conflicts = (int) results.stream().filter(item -> item.status() == Status.CONFLICT).count();
+        log.info("Updated {} of {} trainings, {} conflicts", updated, results.size(), conflicts);
+        return new TrainingBatchUpdateResultDto(updated, conflicts, results.size() - updated - conflicts, results);
+    }
+
+}
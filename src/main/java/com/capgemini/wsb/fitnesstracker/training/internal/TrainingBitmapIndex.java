@@ -0,0 +1,275 @@
+package com.capgemini.wsb.fitnesstracker.training.internal;
+
+import com.capgemini.wsb.fitnesstracker.training.api.Training;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingSavedEvent;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingsArchivedEvent;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingsDeletedEvent;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingsDroppedEvent;
+import com.capgemini.wsb.fitnesstracker.training.api.UserTrainingsDeletedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory compressed bitmap index of training IDs by activity type, by day of the start time and by user.
+ * Combined filters are answered with bitmap intersections, leaving only the matching trainings to be fetched by ID.
+ * The bitmaps hold 64-bit IDs, so the index keeps working once the training sequence passes {@link Integer#MAX_VALUE}.
+ * The index is built on application startup and kept current through {@link TrainingSavedEvent},
+ * {@link UserTrainingsDeletedEvent}, {@link TrainingsDeletedEvent}, {@link TrainingsDroppedEvent} and {@link TrainingsArchivedEvent},
+ * applied after the writes commit, so archived trainings leave the index like deleted ones. Its size is published as the
+ * {@code training.bitmap.index.size} metric.
+ */
+@Component
+@Slf4j
+class TrainingBitmapIndex {
+
+    private static final String LOAD_QUERY = "select id, user_id, start_time, activity_type from trainings";
+
+    private static final int LOAD_FETCH_SIZE = 1000;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Roaring64Bitmap all = new Roaring64Bitmap();
+
+    private final Roaring64Bitmap[] byActivityType = new Roaring64Bitmap[ActivityType.values().length];
+
+    private final NavigableMap<Long, Roaring64Bitmap> byDay = new TreeMap<>();
+
+    private final Map<Long, Roaring64Bitmap> byUser = new HashMap<>();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile boolean ready;
+
+    TrainingBitmapIndex(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        for (int i = 0; i < byActivityType.length; i++) {
+            byActivityType[i] = new Roaring64Bitmap();
+        }
+        Gauge.builder("training.bitmap.index.size", this, TrainingBitmapIndex::sizeInBytes).baseUnit("bytes").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void build() {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(LOAD_QUERY);
+            statement.setFetchSize(LOAD_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) row -> add(
+                row.getLong("id"),
+                row.getLong("user_id"),
+                row.getTimestamp("start_time").getTime(),
+                ActivityType.values()[row.getInt("activity_type")]));
+        lock.writeLock().lock();
+        try {
+            all.runOptimize();
+            for (Roaring64Bitmap bitmap : byActivityType) {
+                bitmap.runOptimize();
+            }
+            ready = true;
+            log.info("Training bitmap index built with {} trainings, {} days, {} bytes", all.getLongCardinality(), byDay.size(), sizeInBytes());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return whether the index was built and can answer queries
+     */
+    boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Finds IDs of trainings matching all given criteria.
+     *
+     * @param activityType activity type of the trainings, or {@code null} for any
+     * @param from         first day of the start time, or {@code null} for no lower bound
+     * @param to           last day of the start time (inclusive), or {@code null} for no upper bound
+     * @return bitmap of the matching training IDs, owned by the caller
+     */
+    Roaring64Bitmap find(@Nullable ActivityType activityType, @Nullable LocalDate from, @Nullable LocalDate to) {
+        lock.readLock().lock();
+        try {
+            Roaring64Bitmap result = activityType == null ? all.clone() : byActivityType[activityType.ordinal()].clone();
+            if (from != null || to != null) {
+                long fromDay = from == null ? Long.MIN_VALUE : from.toEpochDay();
+                long toDay = to == null ? Long.MAX_VALUE : to.toEpochDay();
+                result.and(union(byDay.subMap(fromDay, true, toDay, true).values()));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onTrainingSaved(TrainingSavedEvent event) {
+        Training training = event.training();
+        lock.writeLock().lock();
+        try {
+            long id = training.getId();
+            if (all.contains(id)) {
+                for (Roaring64Bitmap bitmap : byActivityType) {
+                    bitmap.removeLong(id);
+                }
+                byDay.values().forEach(bitmap -> bitmap.removeLong(id));
+            }
+            add(training.getId(), training.getUser().getId(), training.getStartTime().getTime(), training.getActivityType());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onUserTrainingsDeleted(UserTrainingsDeletedEvent event) {
+        lock.writeLock().lock();
+        try {
+            Roaring64Bitmap deleted = byUser.remove(event.userId());
+            if (deleted == null)
+                return;
+            all.andNot(deleted);
+            for (Roaring64Bitmap bitmap : byActivityType) {
+                bitmap.andNot(deleted);
+            }
+            byDay.values().removeIf(bitmap -> {
+                bitmap.andNot(deleted);
+                return bitmap.isEmpty();
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onTrainingsDeleted(TrainingsDeletedEvent event) {
+        Roaring64Bitmap deleted = new Roaring64Bitmap();
+        event.trainingIds().forEach(deleted::addLong);
+        lock.writeLock().lock();
+        try {
+            Roaring64Bitmap userTrainings = byUser.get(event.userId());
+            if (userTrainings != null) {
+                userTrainings.andNot(deleted);
+                if (userTrainings.isEmpty())
+                    byUser.remove(event.userId());
+            }
+            all.andNot(deleted);
+            for (Roaring64Bitmap bitmap : byActivityType) {
+                bitmap.andNot(deleted);
+            }
+            byDay.values().removeIf(bitmap -> {
+                bitmap.andNot(deleted);
+                return bitmap.isEmpty();
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onTrainingsArchived(TrainingsArchivedEvent event) {
+        Roaring64Bitmap archived = new Roaring64Bitmap();
+        event.trainingIds().forEach(archived::addLong);
+        lock.writeLock().lock();
+        try {
+            all.andNot(archived);
+            for (Roaring64Bitmap bitmap : byActivityType) {
+                bitmap.andNot(archived);
+            }
+            byDay.values().removeIf(bitmap -> {
+                bitmap.andNot(archived);
+                return bitmap.isEmpty();
+            });
+            byUser.values().removeIf(bitmap -> {
+                bitmap.andNot(archived);
+                return bitmap.isEmpty();
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onTrainingsDropped(TrainingsDroppedEvent event) {
+        long cutoffDay = event.startedBefore().toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+        lock.writeLock().lock();
+        try {
+            NavigableMap<Long, Roaring64Bitmap> droppedDays = byDay.headMap(cutoffDay, false);
+            if (droppedDays.isEmpty())
+                return;
+            Roaring64Bitmap dropped = union(droppedDays.values());
+            droppedDays.clear();
+            all.andNot(dropped);
+            for (Roaring64Bitmap bitmap : byActivityType) {
+                bitmap.andNot(dropped);
+            }
+            byUser.values().removeIf(bitmap -> {
+                bitmap.andNot(dropped);
+                return bitmap.isEmpty();
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(long id, long userId, long startTime, ActivityType activityType) {
+        long day = Instant.ofEpochMilli(startTime).atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+        lock.writeLock().lock();
+        try {
+            all.addLong(id);
+            byActivityType[activityType.ordinal()].addLong(id);
+            byDay.computeIfAbsent(day, key -> new Roaring64Bitmap()).addLong(id);
+            byUser.computeIfAbsent(userId, key -> new Roaring64Bitmap()).addLong(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static Roaring64Bitmap union(Collection<Roaring64Bitmap> bitmaps) {
+        Roaring64Bitmap union = new Roaring64Bitmap();
+        for (Roaring64Bitmap bitmap : bitmaps) {
+            union.or(bitmap);
+        }
+        return union;
+    }
+
+    private long sizeInBytes() {
+        lock.readLock().lock();
+        try {
+            long size = all.getLongSizeInBytes();
+            for (Roaring64Bitmap bitmap : byActivityType) {
+                size += bitmap.getLongSizeInBytes();
+            }
+            for (Roaring64Bitmap bitmap : byDay.values()) {
+                size += bitmap.getLongSizeInBytes();
+            }
+            for (Roaring64Bitmap bitmap : byUser.values()) {
+                size += bitmap.getLongSizeInBytes();
+            }
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+}
@@ -0,0 +1,9 @@
+package com.capgemini.wsb.fitnesstracker.training.internal;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(TrainingProperties.class)
+class TrainingConfig {
+}
@@ -1,22 +1,45 @@
 package com.capgemini.wsb.fitnesstracker.training.internal;
 
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingArchivedException;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingBatchResultDto;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingBatchUpdateResultDto;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingCursor;
 import com.capgemini.wsb.fitnesstracker.training.api.TrainingDto;
 import com.capgemini.wsb.fitnesstracker.training.api.TrainingProvider;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingSampleDto;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingSamplesDto;
 import com.capgemini.wsb.fitnesstracker.training.api.TrainingService;
 import com.capgemini.wsb.fitnesstracker.training.api.TrainingUpdateDto;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingVersionConflictException;
 import com.capgemini.wsb.fitnesstracker.user.internal.UserRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.Nullable;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/v1/trainings")
@@ -24,28 +47,134 @@ import java.util.Map;
 public class TrainingController {
     private static final Logger logger = LoggerFactory.getLogger(TrainingController.class);
 
+    /**
+     * Response header carrying the cursor to be passed as {@code after} to fetch the next page.
+     */
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final TrainingService trainingService;
     private final TrainingProvider trainingProvider;
+    private final TrainingProperties trainingProperties;
+    private final TrainingBatchIngestor trainingBatchIngestor;
+    private final TrainingIngestQueue trainingIngestQueue;
+    private final TrainingBatchUpdater trainingBatchUpdater;
+    private final TrainingArchive trainingArchive;
+    private final TrainingExporter trainingExporter;
+    private final TrainingSampleStore trainingSampleStore;
+    private final TrainingModificationCounters trainingModificationCounters;
+    private final ObjectMapper objectMapper;
     @Autowired
     private final UserRepository userRepository;
 
     /**
-     * Get all trainings.
+     * Get a page of trainings, ordered by start time and ID.
+     * If the page is full, the {@value #NEXT_CURSOR_HEADER} header holds the cursor of the next page.
+     * @param after Cursor returned with the previous page, or null for the first page.
+     * @param size Optional page size, capped by the configured maximum.
      */
     @GetMapping
-    public ResponseEntity<List<TrainingDto>> getAllTrainings() {
-        List<TrainingDto> trainings = trainingProvider.findAllTrainings();
-        return ResponseEntity.ok(trainings);
+    public ResponseEntity<List<TrainingDto>> getAllTrainings(@RequestParam(required = false) String after,
+                                                             @RequestParam(required = false) Integer size) {
+        int limit = trainingProperties.resolvePageSize(size);
+        TrainingCursor cursor = after == null ? null : TrainingCursor.decode(after);
+        List<TrainingDto> trainings = trainingProvider.findTrainingsAfter(cursor, limit);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!trainings.isEmpty() && trainings.size() == limit)
+            response.header(NEXT_CURSOR_HEADER, TrainingCursor.after(trainings.get(trainings.size() - 1)).encode());
+        return response.body(trainings);
     }
 
     /**
-     * Get all trainings for a specific user.
+     * Stream all trainings as a JSON array, ordered by start time and ID,
+     * writing every element as soon as it is read from the database.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllTrainings() {
+        StreamingResponseBody body = outputStream -> {
+            JsonGenerator generator = objectMapper.createGenerator(outputStream);
+            generator.writeStartArray();
+            trainingProvider.forEachTraining(training -> {
+                try {
+                    generator.writeObject(training);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+            generator.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * Export all trainings, optionally only those started within a range of days, as CSV or newline-delimited JSON.
+     * Rows are written straight from the database cursor and identify the user by ID only.
+     * @param format Format of the export, {@code csv} or {@code ndjson}.
+     * @param from Optional first day (yyyy-MM-dd) of the range.
+     * @param to Optional last day (yyyy-MM-dd) of the range, inclusive.
+     * @param gzip Whether the export should be gzip-compressed.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTrainings(@RequestParam(defaultValue = "csv") String format,
+                                                                 @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
+                                                                 @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate to,
+                                                                 @RequestParam(defaultValue = "false") boolean gzip) {
+        TrainingExportFormat exportFormat = TrainingExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        Date lowerBound = from == null ? null : startOfDay(from);
+        Date upperBound = to == null ? null : startOfDay(to.plusDays(1));
+
+        StreamingResponseBody body = outputStream -> {
+            if (gzip) {
+                GZIPOutputStream gzipStream = new GZIPOutputStream(outputStream, 64 * 1024);
+                trainingExporter.export(exportFormat, lowerBound, upperBound, gzipStream);
+                gzipStream.finish();
+            } else {
+                trainingExporter.export(exportFormat, lowerBound, upperBound, outputStream);
+            }
+        };
+        String fileName = "trainings." + exportFormat.getFileExtension() + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                             .contentType(gzip ? new MediaType("application", "gzip") : exportFormat.getMediaType())
+                             .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                             .body(body);
+    }
+
+    /**
+     * Get all trainings for a specific user, optionally only those started within a range of days.
+     * Responds with 304 Not Modified without querying the trainings if the client's ETag is still current.
      * @param userId ID of the user whose trainings are to be retrieved.
+     * @param from Optional first day (yyyy-MM-dd) of the range.
+     * @param to Optional last day (yyyy-MM-dd) of the range, inclusive.
      */
     @GetMapping("/{userId}")
-    public ResponseEntity<List<TrainingDto>> getTrainingsByUser(@PathVariable Long userId) {
-        List<TrainingDto> trainings = trainingProvider.findTrainingsByUserId(userId);
-        return ResponseEntity.ok(trainings);
+    public ResponseEntity<List<TrainingDto>> getTrainingsByUser(@PathVariable Long userId,
+                                                                @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
+                                                                @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate to,
+                                                                WebRequest request) {
+        String eTag = trainingModificationCounters.userETag(userId, variantOf(request, from, to));
+        if (request.checkNotModified(eTag))
+            return null;
+
+        if (from == null && to == null)
+            return ResponseEntity.ok().eTag(eTag).body(trainingProvider.findTrainingsByUserId(userId));
+
+        List<TrainingDto> trainings = trainingProvider.findTrainingsByUserIdBetween(userId,
+                from == null ? null : startOfDay(from),
+                to == null ? null : startOfDay(to.plusDays(1)));
+        return ResponseEntity.ok().eTag(eTag).body(trainings);
+    }
+
+    /**
+     * Get the most recent trainings of a specific user, newest first.
+     * @param userId ID of the user whose trainings are to be retrieved.
+     * @param limit Optional maximum number of trainings, by default the number of trainings cached per user.
+     */
+    @GetMapping("/{userId}/recent")
+    public ResponseEntity<List<TrainingDto>> getRecentTrainingsByUser(@PathVariable Long userId,
+                                                                      @RequestParam(required = false) Integer limit) {
+        int resolvedLimit = limit == null ? trainingProperties.getRecent().getCapacity() : trainingProperties.resolvePageSize(limit);
+        return ResponseEntity.ok(trainingProvider.findRecentTrainingsByUserId(userId, resolvedLimit));
     }
 
     /**
@@ -59,13 +188,25 @@ public class TrainingController {
     }
 
     /**
-     * Get all trainings by activity type.
+     * Get all trainings by activity type, optionally only those started within a range of days.
+     * Responds with 304 Not Modified without querying the trainings if the client's ETag is still current.
      * @param activityType The type of activity for filtering trainings.
+     * @param from Optional first day (yyyy-MM-dd) of the range.
+     * @param to Optional last day (yyyy-MM-dd) of the range, inclusive.
      */
     @GetMapping("/activityType")
-    public ResponseEntity<List<TrainingDto>> getTrainingsByActivityType(@RequestParam ActivityType activityType) {
-        List<TrainingDto> trainings = trainingProvider.findTrainingsByActivityType(activityType);
-        return ResponseEntity.ok(trainings);
+    public ResponseEntity<List<TrainingDto>> getTrainingsByActivityType(@RequestParam ActivityType activityType,
+                                                                        @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
+                                                                        @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate to,
+                                                                        WebRequest request) {
+        String eTag = trainingModificationCounters.activityTypeETag(activityType, variantOf(request, from, to));
+        if (request.checkNotModified(eTag))
+            return null;
+
+        List<TrainingDto> trainings = from == null && to == null
+                ? trainingProvider.findTrainingsByActivityType(activityType)
+                : trainingProvider.findTrainingsByActivityType(activityType, from, to);
+        return ResponseEntity.ok().eTag(eTag).body(trainings);
     }
 
     /**
@@ -78,6 +219,55 @@ public class TrainingController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdTraining);
     }
 
+    /**
+     * Create a new training through the write-behind ingest queue, meant for bursts of device syncs.
+     * The training is acknowledged with its reserved ID and stored shortly afterwards together with other queued ones.
+     * When the queue is full, 429 is returned and the client should retry after the {@code Retry-After} delay;
+     * when the queue is disabled, the training is created right away.
+     * @param trainingDto Training data of the new training.
+     * @return the ID of the training.
+     */
+    @PostMapping("/ingest")
+    public ResponseEntity<Map<String, Long>> ingestTraining(@RequestBody TrainingDto trainingDto) {
+        if (!trainingIngestQueue.isEnabled())
+            return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("id", trainingService.createTraining(trainingDto).id));
+
+        return trainingIngestQueue.offer(trainingDto)
+                .map(id -> ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of("id", id)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").build());
+    }
+
+    /**
+     * Create many trainings at once, e.g. uploaded by a wearable device sync.
+     * Invalid trainings are rejected individually; the response reports the outcome of every training.
+     * @param trainings Training data of the new trainings.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<TrainingBatchResultDto> createTrainings(@RequestBody List<TrainingDto> trainings) {
+        return ResponseEntity.ok(trainingBatchIngestor.ingest(trainings));
+    }
+
+    /**
+     * Apply many partial updates at once in a single transaction, e.g. edits synced from a watch.
+     * Every update must carry the training ID and may carry the version it expects the training to have;
+     * the response reports the outcome of every update, including version conflicts.
+     * @param updates Partial updates of the trainings.
+     */
+    @PatchMapping("/batch")
+    public ResponseEntity<TrainingBatchUpdateResultDto> updateTrainings(@RequestBody List<TrainingUpdateDto> updates) {
+        return ResponseEntity.ok(trainingBatchUpdater.update(updates));
+    }
+
+    /**
+     * Move trainings older than the configured retention period from the database into the cold archive.
+     * Archived trainings are still returned by all training queries.
+     * @return the number of archived trainings.
+     */
+    @PostMapping("/archive")
+    public ResponseEntity<Map<String, Integer>> archiveTrainings() {
+        return ResponseEntity.ok(Map.of("archived", trainingArchive.archive()));
+    }
+
     /**
      * Handles HTTP PUT requests to update an existing training by its ID.
      * @param trainingId the ID of the training to update.
@@ -91,6 +281,51 @@ public class TrainingController {
         return ResponseEntity.ok(updatedTraining);
     }
 
+    /**
+     * Store the samples recorded by a device during a training, replacing previously stored ones.
+     * @param trainingId the ID of the training.
+     * @param samples the recorded samples.
+     * @return the number of stored samples.
+     */
+    @PutMapping("/{trainingId}/samples")
+    public ResponseEntity<Map<String, Integer>> storeSamples(@PathVariable Long trainingId, @RequestBody List<TrainingSampleDto> samples) {
+        return ResponseEntity.ok(Map.of("samples", trainingSampleStore.store(trainingId, samples)));
+    }
+
+    /**
+     * Get the samples recorded during a training, optionally downsampled to the mean of every interval.
+     * @param trainingId the ID of the training.
+     * @param resolution Optional length of the intervals, e.g. {@code 10s} or {@code 1m}.
+     * @return the samples, or 404 if no samples were stored for the training.
+     */
+    @GetMapping("/{trainingId}/samples")
+    public ResponseEntity<TrainingSamplesDto> getSamples(@PathVariable Long trainingId, @RequestParam(required = false) String resolution) {
+        Duration interval = resolution == null ? null : DurationStyle.detectAndParse(resolution);
+        return ResponseEntity.of(trainingSampleStore.find(trainingId, interval));
+    }
+
+    /**
+     * Identifies the representation of a list, so that lists of different ranges or formats get different ETags.
+     */
+    private static String variantOf(WebRequest request, @Nullable LocalDate from, @Nullable LocalDate to) {
+        return from + "/" + to + "/" + request.getHeader(HttpHeaders.ACCEPT);
+    }
+
+    private static Date startOfDay(LocalDate day) {
+        return Date.from(day.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    /**
+     * Handles updates that conflict with concurrent changes of the same training or with its archiving.
+     * @param ex the exception that was thrown.
+     * @return a ResponseEntity containing an error message and HTTP CONFLICT status.
+     */
+    @ExceptionHandler({TrainingVersionConflictException.class, TrainingArchivedException.class, OptimisticLockingFailureException.class})
+    public ResponseEntity<Object> handleConflicts(Exception ex) {
+        logger.info("Conflicting training update: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", ex.getMessage()));
+    }
+
     /**
      * Handles all exceptions that are not specifically caught by other exception handlers.
      * Logs the error and returns a standardized error response.
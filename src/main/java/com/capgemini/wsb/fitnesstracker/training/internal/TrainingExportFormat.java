@@ -0,0 +1,21 @@
+package com.capgemini.wsb.fitnesstracker.training.internal;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+
+/**
+ * Formats of the trainings export.
+ */
+@Getter
+@RequiredArgsConstructor
+enum TrainingExportFormat {
+
+    CSV(new MediaType("text", "csv"), "csv"),
+    NDJSON(MediaType.APPLICATION_NDJSON, "ndjson");
+
+    private final MediaType mediaType;
+
+    private final String fileExtension;
+
+}
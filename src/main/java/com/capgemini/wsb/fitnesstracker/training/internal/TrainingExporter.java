@@ -0,0 +1,149 @@
+package com.capgemini.wsb.fitnesstracker.training.internal;
+
+import jakarta.annotation.Nullable;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.Iterator;
+
+/**
+ * Writes trainings in a flat export format straight from a forward-only JDBC cursor to an output stream,
+ * without mapping them to entities or DTOs. Trainings are identified by their user ID only.
+ * The cursor is read in a read-only transaction, as drivers such as PostgreSQL's honour the fetch size only with
+ * autocommit off, and as read-only work may be served by the replica.
+ * Archived trainings matching the range are written first, followed by the trainings stored in the database,
+ * each ordered by start time and ID. Times are formatted as {@code yyyy-MM-dd HH:mm:ss} in UTC, like in {@code TrainingDto}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class TrainingExporter {
+
+    private static final String EXPORT_QUERY = """
+            select id, user_id, start_time, end_time, activity_type, distance, average_speed
+            from trainings
+            where start_time >= ? and start_time < ?
+            order by start_time, id""";
+
+    private static final String CSV_HEADER = "id,userId,startTime,endTime,activityType,distance,averageSpeed\n";
+
+    private static final int FETCH_SIZE = 1000;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneOffset.UTC);
+
+    private static final Date EARLIEST_START_TIME = new Date(0);
+
+    private static final Date LATEST_START_TIME = Date.from(Instant.parse("9999-12-31T00:00:00Z"));
+
+    private static final ActivityType[] ACTIVITY_TYPES = ActivityType.values();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TrainingArchive trainingArchive;
+
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Writes all trainings started within the half-open range to the output stream.
+     *
+     * @param format       format of the export
+     * @param from         inclusive lower bound of the start time, or null for no lower bound
+     * @param to           exclusive upper bound of the start time, or null for no upper bound
+     * @param outputStream stream the export is written to; it is flushed, but not closed
+     */
+    void export(TrainingExportFormat format, @Nullable Date from, @Nullable Date to, OutputStream outputStream) throws IOException {
+        long lowerBound = (from != null ? from : EARLIEST_START_TIME).getTime();
+        long upperBound = (to != null ? to : LATEST_START_TIME).getTime();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        StringBuilder line = new StringBuilder(160);
+        if (format == TrainingExportFormat.CSV)
+            writer.write(CSV_HEADER);
+
+        long rows = 0;
+        Iterator<ArchivedTraining> archived = trainingArchive.iterator(lowerBound, upperBound);
+        while (archived.hasNext()) {
+            ArchivedTraining training = archived.next();
+            formatRow(format, line, training.id(), training.userId(), training.startTime(), training.endTime(),
+                      training.activityType(), training.distance(), training.averageSpeed());
+            writer.append(line);
+            rows++;
+        }
+
+        long[] databaseRows = new long[1];
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(EXPORT_QUERY, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setTimestamp(1, new Timestamp(lowerBound));
+            statement.setTimestamp(2, new Timestamp(upperBound));
+            return statement;
+        }, (RowCallbackHandler) row -> {
+            formatRow(format, line,
+                      row.getLong(1),
+                      row.getLong(2),
+                      row.getTimestamp(3).getTime(),
+                      row.getTimestamp(4).getTime(),
+                      ACTIVITY_TYPES[row.getInt(5)],
+                      row.getDouble(6),
+                      row.getDouble(7));
+            try {
+                writer.append(line);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            databaseRows[0]++;
+        }));
+        writer.flush();
+        log.info("Exported {} trainings as {}", rows + databaseRows[0], format);
+    }
+
+    private static void formatRow(TrainingExportFormat format, StringBuilder line, long id, long userId, long startTime,
+                                  long endTime, ActivityType activityType, double distance, double averageSpeed) {
+        line.setLength(0);
+        if (format == TrainingExportFormat.CSV) {
+            line.append(id).append(',')
+                .append(userId).append(',');
+            TIME_FORMAT.formatTo(Instant.ofEpochMilli(startTime), line);
+            line.append(',');
+            TIME_FORMAT.formatTo(Instant.ofEpochMilli(endTime), line);
+            line.append(',')
+                .append(activityType.name()).append(',')
+                .append(distance).append(',')
+                .append(averageSpeed).append('\n');
+        } else {
+            line.append("{\"id\":").append(id)
+                .append(",\"userId\":").append(userId)
+                .append(",\"startTime\":\"");
+            TIME_FORMAT.formatTo(Instant.ofEpochMilli(startTime), line);
+            line.append("\",\"endTime\":\"");
+            TIME_FORMAT.formatTo(Instant.ofEpochMilli(endTime), line);
+            line.append("\",\"activityType\":\"").append(activityType.name())
+                .append("\",\"distance\":").append(distance)
+                .append(",\"averageSpeed\":").append(averageSpeed)
+                .append("}\n");
+        }
+    }
+
+}
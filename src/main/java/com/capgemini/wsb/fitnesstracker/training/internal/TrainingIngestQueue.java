@@ -0,0 +1,262 @@
+package com.capgemini.wsb.fitnesstracker.training.internal;
+
+import com.capgemini.wsb.fitnesstracker.training.api.Training;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingDto;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingSavedEvent;
+import com.capgemini.wsb.fitnesstracker.user.api.User;
+import com.capgemini.wsb.fitnesstracker.user.internal.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind queue for trainings created by bursts of device syncs.
+ * Accepted trainings get their ID reserved from the Hibernate generator of {@link Training}, which hands out IDs
+ * from blocks of the {@code trainings_seq} sequence, and are queued in memory. A single writer thread drains the queue
+ * and inserts the trainings in groups of up to {@link TrainingProperties.Ingest#getMaxGroupSize()}, each with one
+ * JDBC batch and one commit, waiting at most {@link TrainingProperties.Ingest#getMaxGroupDelay()} for a group to fill.
+ * Trainings whose user no longer exists when their group is written are dropped, as are groups whose write fails
+ * and queued trainings lost on a crash. A group counts as stored once committed, even if a callback after the commit fails.
+ * Queue depth, commit latency and the outcome of written trainings are published as {@code training.ingest.*} metrics.
+ */
+@Component
+@Slf4j
+class TrainingIngestQueue {
+
+    private static final String INSERT = """
+            insert into trainings (id, user_id, start_time, end_time, activity_type, distance, average_speed, version)
+            values (?, ?, ?, ?, ?, ?, ?, 0)
+            """;
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private final boolean enabled;
+
+    private final int maxGroupSize;
+
+    private final long maxGroupDelayNanos;
+
+    private final BlockingQueue<PendingTraining> queue;
+
+    private final UserRepository userRepository;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final EntityManager entityManager;
+
+    private final SessionFactoryImplementor sessionFactory;
+
+    private final IdentifierGenerator idGenerator;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final TransactionTemplate transaction;
+
+    private final Timer commitTimer;
+
+    private final Counter storedTrainings;
+
+    private final Counter droppedTrainings;
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "training-ingest");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean running = true;
+
+    TrainingIngestQueue(TrainingProperties trainingProperties,
+                        UserRepository userRepository,
+                        JdbcTemplate jdbcTemplate,
+                        EntityManager entityManager,
+                        EntityManagerFactory entityManagerFactory,
+                        ApplicationEventPublisher eventPublisher,
+                        PlatformTransactionManager transactionManager,
+                        MeterRegistry meterRegistry) {
+        TrainingProperties.Ingest properties = trainingProperties.getIngest();
+        this.enabled = properties.isEnabled();
+        this.maxGroupSize = Math.max(1, properties.getMaxGroupSize());
+        this.maxGroupDelayNanos = properties.getMaxGroupDelay().toNanos();
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity()));
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.idGenerator = (IdentifierGenerator) sessionFactory.getMappingMetamodel().getEntityDescriptor(Training.class).getGenerator();
+        this.eventPublisher = eventPublisher;
+        this.transaction = new TransactionTemplate(transactionManager);
+
+        Gauge.builder("training.ingest.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+        this.commitTimer = Timer.builder("training.ingest.commit").publishPercentileHistogram().register(meterRegistry);
+        this.storedTrainings = Counter.builder("training.ingest.trainings").tag("result", "stored").register(meterRegistry);
+        this.droppedTrainings = Counter.builder("training.ingest.trainings").tag("result", "dropped").register(meterRegistry);
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Accepts a training to be written by the writer thread.
+     *
+     * @param training the new training
+     * @return the ID reserved for the training, or empty if the queue is full
+     * @throws IllegalArgumentException if the training is invalid
+     * @throws IllegalStateException    if the queue is disabled or shut down
+     */
+    Optional<Long> offer(TrainingDto training) {
+        if (!enabled || !running)
+            throw new IllegalStateException("Training ingest queue is not accepting trainings");
+        String error = training == null ? "Training is missing" : TrainingBatchIngestor.validateFields(training);
+        if (error != null)
+            throw new IllegalArgumentException(error);
+        if (queue.remainingCapacity() == 0)
+            return Optional.empty();
+
+        Long id = reserveId();
+        return queue.offer(new PendingTraining(id, training)) ? Optional.of(id) : Optional.empty();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        if (enabled)
+            writer.execute(this::drain);
+    }
+
+    /**
+     * Stops accepting trainings and waits for the writer to write the queued ones.
+     */
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        writer.shutdown();
+        if (!writer.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            log.warn("{} queued trainings were not written before shutdown", queue.size());
+            writer.shutdownNow();
+        }
+    }
+
+    private Long reserveId() {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            return (Long) idGenerator.generate((SharedSessionContractImplementor) session, null);
+        }
+    }
+
+    private void drain() {
+        List<PendingTraining> group = new ArrayList<>(maxGroupSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                PendingTraining first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null)
+                    continue;
+
+                group.add(first);
+                long deadline = System.nanoTime() + maxGroupDelayNanos;
+                while (group.size() < maxGroupSize) {
+                    PendingTraining next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null)
+                        break;
+                    group.add(next);
+                }
+                write(group);
+                group.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(List<PendingTraining> group) {
+        CommitTracker commit = new CommitTracker();
+        int[] stored = {0};
+        try {
+            commitTimer.record(() -> transaction.executeWithoutResult(status -> {
+                commit.register();
+                stored[0] = insert(group);
+            }));
+        } catch (RuntimeException e) {
+            if (!commit.isCommitted()) {
+                // the group was rolled back, e.g. no connection or a listener failing inside the transaction;
+                // only this group is dropped and the writer keeps running
+                log.error("Failed to write group of {} trainings", group.size(), e);
+                droppedTrainings.increment(group.size());
+                return;
+            }
+            log.error("Wrote group of {} trainings, but a callback after its commit failed", stored[0], e);
+        }
+        storedTrainings.increment(stored[0]);
+        droppedTrainings.increment(group.size() - stored[0]);
+        log.debug("Wrote group of {} trainings", stored[0]);
+    }
+
+    private int insert(List<PendingTraining> group) {
+        Set<Long> userIds = new HashSet<>();
+        group.forEach(pending -> userIds.add(pending.training().user.id()));
+        Set<Long> existingUserIds = userRepository.findExistingIds(userIds);
+
+        List<Object[]> rows = new ArrayList<>(group.size());
+        List<Training> trainings = new ArrayList<>(group.size());
+        for (PendingTraining pending : group) {
+            TrainingDto dto = pending.training();
+            if (!existingUserIds.contains(dto.user.id())) {
+                log.warn("Dropped training {} of missing User {}", pending.id(), dto.user.id());
+                continue;
+            }
+            rows.add(new Object[]{
+                    pending.id(),
+                    dto.user.id(),
+                    new Timestamp(dto.startTime.getTime()),
+                    new Timestamp(dto.endTime.getTime()),
+                    dto.activityType.ordinal(),
+                    dto.distance,
+                    dto.averageSpeed});
+
+            Training training = new Training(entityManager.getReference(User.class, dto.user.id()),
+                                             dto.startTime,
+                                             dto.endTime,
+                                             dto.activityType,
+                                             dto.distance,
+                                             dto.averageSpeed);
+            training.setId(pending.id());
+            trainings.add(training);
+        }
+
+        if (!rows.isEmpty())
+            jdbcTemplate.batchUpdate(INSERT, rows);
+        trainings.forEach(training -> eventPublisher.publishEvent(new TrainingSavedEvent(training)));
+        return trainings.size();
+    }
+
+    private record PendingTraining(Long id, TrainingDto training) {
+    }
+
+}
@@ -4,10 +4,14 @@ import com.capgemini.wsb.fitnesstracker.user.api.UserDto;
 import com.capgemini.wsb.fitnesstracker.user.internal.UserMapper;
 import com.capgemini.wsb.fitnesstracker.training.api.Training;
 import com.capgemini.wsb.fitnesstracker.training.api.TrainingDto;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingUpdateDto;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingVersionConflictException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Service;
 
+import java.util.Date;
+
 /**
  * Mapper class responsible for converting between Training entities and DTOs (Data Transfer Objects).
  */
@@ -32,9 +36,58 @@ public class TrainingMapper {
        dto.activityType = training.getActivityType();
        dto.distance = training.getDistance();
        dto.averageSpeed = training.getAverageSpeed();
+       dto.version = training.getVersion();
        return dto;
     }
 
+    /**
+     * Converts an archived training to a TrainingDto.
+     *
+     * @param training the archived training to be converted.
+     * @param user the owner of the training, or null if the user no longer exists.
+     * @return a TrainingDto containing the training's details.
+     */
+    TrainingDto toDto(ArchivedTraining training, UserDto user) {
+        var dto = new TrainingDto();
+        dto.id = training.id();
+        dto.user = user;
+        dto.startTime = new Date(training.startTime());
+        dto.endTime = new Date(training.endTime());
+        dto.activityType = training.activityType();
+        dto.distance = training.distance();
+        dto.averageSpeed = training.averageSpeed();
+        return dto;
+    }
+
+    /**
+     * Applies a partial update to a Training entity. Only the fields provided in the update are changed.
+     *
+     * @param training the Training entity to be updated.
+     * @param update the fields to be changed and, optionally, the version the client expects the training to have.
+     * @throws TrainingVersionConflictException if the training has a different version than the expected one.
+     * @throws IllegalArgumentException if the updated training would end before it starts or have negative metrics.
+     */
+    void applyUpdate(Training training, TrainingUpdateDto update) {
+        if (update.version != null && !update.version.equals(training.getVersion()))
+            throw new TrainingVersionConflictException(training.getId(), update.version, training.getVersion());
+
+        Date startTime = update.startTime != null ? update.startTime : training.getStartTime();
+        Date endTime = update.endTime != null ? update.endTime : training.getEndTime();
+        double distance = update.distance != null ? update.distance : training.getDistance();
+        double averageSpeed = update.averageSpeed != null ? update.averageSpeed : training.getAverageSpeed();
+        if (endTime.before(startTime))
+            throw new IllegalArgumentException("End time must not be before start time");
+        if (distance < 0 || averageSpeed < 0)
+            throw new IllegalArgumentException("Distance and average speed must not be negative");
+
+        training.setStartTime(startTime);
+        training.setEndTime(endTime);
+        if (update.activityType != null)
+            training.setActivityType(update.activityType);
+        training.setDistance(distance);
+        training.setAverageSpeed(averageSpeed);
+    }
+
     /**
      * Converts a TrainingDto to a Training entity.
      *
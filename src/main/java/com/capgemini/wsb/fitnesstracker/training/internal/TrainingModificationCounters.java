@@ -0,0 +1,105 @@
+package com.capgemini.wsb.fitnesstracker.training.internal;
+
+import com.capgemini.wsb.fitnesstracker.training.api.Training;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingSavedEvent;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingsDeletedEvent;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingsDroppedEvent;
+import com.capgemini.wsb.fitnesstracker.training.api.UserTrainingsDeletedEvent;
+import com.capgemini.wsb.fitnesstracker.user.api.UserUpdatedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Modification counters of the trainings of every user and of every activity type, from which strong ETags of the
+ * training lists are derived without running their queries.
+ * Counters are incremented after the writes commit, while requests read them before running their query, so a list
+ * may be tagged older than its content, but never newer: a client is never told that a stale list is up to date.
+ * Created trainings change the lists of their activity type only; updates, deletions and changes of users may move
+ * trainings between or change them within any activity type list, so they increment a counter shared by all of them.
+ * Dropping old trainings may change any list, so it increments a counter included in the ETags of all lists.
+ * Counters start from zero on every start, so ETags also carry the start time of the instance.
+ */
+@Component
+class TrainingModificationCounters {
+
+    private final String instance = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+    private final Map<Long, AtomicLong> userCounters = new ConcurrentHashMap<>();
+
+    private final AtomicLongArray activityTypeCounters = new AtomicLongArray(ActivityType.values().length);
+
+    private final AtomicLong sharedCounter = new AtomicLong();
+
+    private final AtomicLong droppedCounter = new AtomicLong();
+
+    /**
+     * Derives the ETag of a list of trainings of a user.
+     *
+     * @param userId  ID of the user
+     * @param variant the parameters and negotiated format of the requested list
+     * @return a strong ETag, including the quotes
+     */
+    String userETag(Long userId, String variant) {
+        AtomicLong counter = userCounters.get(userId);
+        return eTag("u" + userId, (counter == null ? 0 : counter.get()) + droppedCounter.get(), variant);
+    }
+
+    /**
+     * Derives the ETag of a list of trainings of an activity type.
+     *
+     * @param activityType the activity type
+     * @param variant      the parameters and negotiated format of the requested list
+     * @return a strong ETag, including the quotes
+     */
+    String activityTypeETag(ActivityType activityType, String variant) {
+        return eTag("a" + activityType.ordinal(), activityTypeCounters.get(activityType.ordinal()) + sharedCounter.get() + droppedCounter.get(), variant);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onTrainingSaved(TrainingSavedEvent event) {
+        Training training = event.training();
+        increment(training.getUser().getId());
+        // trainings are created with version 0, every update increments it
+        if (training.getVersion() == null || training.getVersion() == 0)
+            activityTypeCounters.incrementAndGet(training.getActivityType().ordinal());
+        else
+            sharedCounter.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onUserTrainingsDeleted(UserTrainingsDeletedEvent event) {
+        increment(event.userId());
+        sharedCounter.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onTrainingsDeleted(TrainingsDeletedEvent event) {
+        increment(event.userId());
+        sharedCounter.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onUserUpdated(UserUpdatedEvent event) {
+        increment(event.userId());
+        sharedCounter.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onTrainingsDropped(TrainingsDroppedEvent event) {
+        droppedCounter.incrementAndGet();
+    }
+
+    private void increment(Long userId) {
+        userCounters.computeIfAbsent(userId, id -> new AtomicLong()).incrementAndGet();
+    }
+
+    private String eTag(String list, long modifications, String variant) {
+        return "\"" + instance + "-" + list + "-" + modifications + "-" + Integer.toHexString(variant.hashCode()) + "\"";
+    }
+
+}
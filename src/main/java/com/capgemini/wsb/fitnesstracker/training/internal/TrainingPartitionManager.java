@@ -0,0 +1,198 @@
+package com.capgemini.wsb.fitnesstracker.training.internal;
+
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingsDroppedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * Maintains the monthly partitions of the trainings table on PostgreSQL, where the table is partitioned by range
+ * of the start time as defined in {@value #DDL_SCRIPT}. Queries bounded by the start time are pruned to the partitions
+ * of the relevant months by the database itself.
+ * Partitions are created for the current month and {@link TrainingProperties.Partitions#getMonthsAhead()} following
+ * ones, so new trainings do not fall into the default partition. With a retention, partitions of months older than
+ * the retention are detached and dropped as a whole instead of deleting their trainings row by row, followed by the
+ * equally old trainings left in the default partition, and a {@link TrainingsDroppedEvent} is published.
+ * On other databases, e.g. the embedded H2, nothing is done.
+ */
+@Component
+@Slf4j
+class TrainingPartitionManager {
+
+    static final String DDL_SCRIPT = "db/postgresql/trainings-partitioned.sql";
+
+    private static final String DEFAULT_PARTITION = "trainings_default";
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("trainings_p(\\d{4})(\\d{2})");
+
+    private static final String PARTITIONED_QUERY = "select count(*) from pg_partitioned_table where partrelid = to_regclass('trainings')";
+
+    private static final String PARTITIONS_QUERY = """
+            select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid
+            where i.inhparent = to_regclass('trainings')
+            """;
+
+    private final TrainingProperties.Partitions properties;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transaction;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private Boolean supported;
+
+    TrainingPartitionManager(TrainingProperties trainingProperties,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             ApplicationEventPublisher eventPublisher) {
+        this.properties = trainingProperties.getPartitions();
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void maintainOnStartup() {
+        if (properties.isEnabled())
+            maintain();
+    }
+
+    @Scheduled(cron = "${fitnesstracker.training.partitions.cron:0 0 2 * * *}")
+    void maintainScheduled() {
+        if (properties.isEnabled())
+            maintain();
+    }
+
+    /**
+     * Creates the partitions of the coming months and drops the partitions of months older than the retention.
+     */
+    synchronized void maintain() {
+        if (!isSupported())
+            return;
+
+        for (YearMonth month : monthsToCreate(YearMonth.now(), properties.getMonthsAhead())) {
+            createPartition(month);
+        }
+        if (properties.getRetention() != null)
+            dropPartitionsBefore(cutoffOf(LocalDate.now(), properties.getRetention()));
+    }
+
+    private boolean isSupported() {
+        if (supported == null)
+            supported = detectPartitionedTable();
+        return supported;
+    }
+
+    private boolean detectPartitionedTable() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            log.info("Training partitions are not managed on {}", database);
+            return false;
+        }
+        Integer partitioned = jdbcTemplate.queryForObject(PARTITIONED_QUERY, Integer.class);
+        if (partitioned == null || partitioned == 0) {
+            log.warn("Table trainings is not partitioned, see {} for its partitioned definition", DDL_SCRIPT);
+            return false;
+        }
+        return true;
+    }
+
+    private void createPartition(YearMonth month) {
+        String partition = partitionOf(month);
+        try {
+            jdbcTemplate.execute("create table if not exists %s partition of trainings for values from ('%s') to ('%s')"
+                                         .formatted(partition, month.atDay(1), month.plusMonths(1).atDay(1)));
+        } catch (DataAccessException e) {
+            // fails if trainings of the month were already stored in the default partition
+            log.error("Failed to create training partition {}", partition, e);
+        }
+    }
+
+    private void dropPartitionsBefore(YearMonth cutoff) {
+        List<String> partitions = jdbcTemplate.queryForList(PARTITIONS_QUERY, String.class);
+        List<String> expired = expiredPartitions(partitions, cutoff);
+        Date startedBefore = startOf(cutoff);
+
+        transaction.executeWithoutResult(status -> {
+            for (String partition : expired) {
+                jdbcTemplate.execute("alter table trainings detach partition " + partition);
+                jdbcTemplate.execute("drop table " + partition);
+            }
+            int deleted = partitions.contains(DEFAULT_PARTITION)
+                    ? jdbcTemplate.update("delete from " + DEFAULT_PARTITION + " where start_time < ?", new Timestamp(startedBefore.getTime()))
+                    : 0;
+            droppedEvent(expired, deleted, cutoff).ifPresent(eventPublisher::publishEvent);
+        });
+        if (!expired.isEmpty())
+            log.info("Dropped training partitions {} started before {}", expired, startedBefore);
+    }
+
+    /**
+     * @return the current month followed by the given number of months
+     */
+    static List<YearMonth> monthsToCreate(YearMonth current, int monthsAhead) {
+        return IntStream.rangeClosed(0, monthsAhead).mapToObj(current::plusMonths).toList();
+    }
+
+    /**
+     * @return the first month whose partition is kept, i.e. the month of the day the retention before today
+     */
+    static YearMonth cutoffOf(LocalDate today, Period retention) {
+        return YearMonth.from(today.minus(retention));
+    }
+
+    /**
+     * @return the names of the monthly partitions among the given ones whose month is before the cutoff, in month order
+     */
+    static List<String> expiredPartitions(Collection<String> partitions, YearMonth cutoff) {
+        return partitions.stream()
+                         .filter(partition -> {
+                             Matcher matcher = PARTITION_NAME.matcher(partition);
+                             return matcher.matches()
+                                    && YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))).isBefore(cutoff);
+                         })
+                         .sorted()
+                         .toList();
+    }
+
+    /**
+     * @return the event to publish after dropping the expired partitions and deleting the given number of rows
+     * of the default partition, or empty if no trainings were removed
+     */
+    static Optional<TrainingsDroppedEvent> droppedEvent(List<String> expired, int deleted, YearMonth cutoff) {
+        if (expired.isEmpty() && deleted <= 0)
+            return Optional.empty();
+        return Optional.of(new TrainingsDroppedEvent(startOf(cutoff)));
+    }
+
+    static String partitionOf(YearMonth month) {
+        return "trainings_p%04d%02d".formatted(month.getYear(), month.getMonthValue());
+    }
+
+    private static Date startOf(YearMonth month) {
+        return Date.from(month.atDay(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.capgemini.wsb.fitnesstracker.training.internal;
+
+import com.capgemini.wsb.fitnesstracker.web.api.PageSizeProperties;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Period;
+
+/**
+ * Configuration of the training module.
+ */
+@ConfigurationProperties(prefix = "fitnesstracker.training")
+@Getter
+@Setter
+@RequiredArgsConstructor
+class TrainingProperties extends PageSizeProperties {
+
+    /**
+     * Maximum number of trainings accepted by a single batch upload.
+     */
+    private int maxBatchSize = 1000;
+
+    /**
+     * Number of trainings of a batch upload that are inserted and committed together.
+     */
+    private int batchChunkSize = 200;
+
+    /**
+     * Number of times a batch update is attempted when it conflicts with concurrent changes of its trainings.
+     */
+    private int batchUpdateAttempts = 3;
+
+    /**
+     * Maximum number of samples stored for a single training, by default a day recorded at 1 Hz.
+     */
+    private int maxSamples = 86_400;
+
+    /**
+     * Cold archive of historical trainings.
+     */
+    private final Archive archive = new Archive();
+
+    /**
+     * Cache of the most recent trainings of every user.
+     */
+    private final Recent recent = new Recent();
+
+    /**
+     * Write-behind queue of trainings created through the ingest endpoint.
+     */
+    private final Ingest ingest = new Ingest();
+
+    /**
+     * Monthly partitions of the trainings table.
+     */
+    private final Partitions partitions = new Partitions();
+
+    @Getter
+    @Setter
+    static class Archive {
+
+        /**
+         * Whether trainings older than the retention period are moved from the database into segment files.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Directory holding the segment files and the tombstones of deleted users.
+         */
+        private Path directory = Path.of("training-archive");
+
+        /**
+         * Age of the start time after which a training is archived.
+         */
+        private Period retention = Period.ofYears(1);
+
+        /**
+         * Number of trainings moved per transaction.
+         */
+        private int chunkSize = 1000;
+
+    }
+
+    @Getter
+    @Setter
+    static class Recent {
+
+        /**
+         * Whether the most recent trainings of users are cached.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Number of most recent trainings kept per user; larger requests bypass the cache.
+         */
+        private int capacity = 20;
+
+        /**
+         * Maximum number of users whose trainings are cached; the least recently used ones are evicted first.
+         */
+        private int maxUsers = 10_000;
+
+    }
+
+    @Getter
+    @Setter
+    static class Ingest {
+
+        /**
+         * Whether trainings created through the ingest endpoint are queued and written in groups;
+         * otherwise they are created synchronously.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Maximum number of queued trainings; further trainings are refused until the writer catches up.
+         */
+        private int queueCapacity = 10_000;
+
+        /**
+         * Maximum number of trainings inserted and committed together.
+         */
+        private int maxGroupSize = 500;
+
+        /**
+         * Maximum time the writer waits for more trainings before committing a group.
+         */
+        private Duration maxGroupDelay = Duration.ofMillis(20);
+
+    }
+
+    @Getter
+    @Setter
+    static class Partitions {
+
+        /**
+         * Whether monthly partitions of the trainings table are created ahead and, with a retention, dropped.
+         * Requires PostgreSQL with the trainings table partitioned by start time; ignored on other databases.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Number of months after the current one for which partitions are kept created.
+         */
+        private int monthsAhead = 3;
+
+        /**
+         * Age after which the partitions of whole months are dropped, or null to keep all trainings.
+         */
+        private Period retention;
+
+    }
+
+}
@@ -2,30 +2,121 @@ package com.capgemini.wsb.fitnesstracker.training.internal;
 
 import com.capgemini.wsb.fitnesstracker.training.api.Training;
 import com.capgemini.wsb.fitnesstracker.user.api.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
-import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Stream;
 /**
  * Repository interface for Training entity.
+ * {@link Training#getUser()} is loaded lazily, so queries whose results are mapped to {@code TrainingDto}
+ * fetch the user in the same statement through the {@code user} entity graph.
  */
 public interface TrainingRepository extends JpaRepository<Training, Long> {
+
+    /**
+     * Finds all trainings together with their users.
+     *
+     * @return list of all trainings.
+     */
+    @Override
+    @EntityGraph(attributePaths = "user")
+    List<Training> findAll();
+
+    /**
+     * Finds a training by its ID together with its user.
+     *
+     * @param id the ID of the training.
+     * @return the training, if found.
+     */
+    @Override
+    @EntityGraph(attributePaths = "user")
+    Optional<Training> findById(Long id);
+
+    /**
+     * Finds the first page of trainings ordered by start time and ID, together with their users.
+     *
+     * @param pageable page definition, only its size is used
+     * @return the first page of trainings
+     */
+    @EntityGraph(attributePaths = "user")
+    List<Training> findAllByOrderByStartTimeAscIdAsc(Pageable pageable);
+
+    /**
+     * Finds a page of trainings ordered by start time and ID that follow the given position, together with their users.
+     *
+     * @param startTime start time of the last training of the previous page
+     * @param id        ID of the last training of the previous page
+     * @param pageable  page definition, only its size is used
+     * @return the page of trainings following the given position
+     */
+    @EntityGraph(attributePaths = "user")
+    @Query("""
+            select t from Training t
+            where t.startTime > :startTime or (t.startTime = :startTime and t.id > :id)
+            order by t.startTime, t.id""")
+    List<Training> findPageAfter(@Param("startTime") Date startTime, @Param("id") Long id, Pageable pageable);
+
+    /**
+     * Streams all trainings ordered by start time and ID, together with their users, through a database cursor.
+     * Must be consumed within a transaction and closed afterwards.
+     *
+     * @return {@link Stream} of all trainings
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select t from Training t join fetch t.user order by t.startTime, t.id")
+    Stream<Training> streamAllOrderedByStartTime();
+
     /**
      * Finds all trainings by a specific activity type.
      *
      * @param activityType the activity type to filter by.
      * @return list of trainings matching the specified activity type.
      */
+    @EntityGraph(attributePaths = "user")
     List<Training> findAllByActivityType(ActivityType activityType);
 
+    /**
+     * Finds trainings of a specific activity type started within a half-open time range, together with their users.
+     *
+     * @param activityType the activity type to filter by.
+     * @param from         the inclusive lower bound of the start time.
+     * @param to           the exclusive upper bound of the start time.
+     * @return list of matching trainings, ordered by start time and ID.
+     */
+    @EntityGraph(attributePaths = "user")
+    @Query("select t from Training t where t.activityType = :activityType and t.startTime >= :from and t.startTime < :to order by t.startTime, t.id")
+    List<Training> findAllByActivityTypeStartedBetween(@Param("activityType") ActivityType activityType,
+                                                       @Param("from") Date from,
+                                                       @Param("to") Date to);
+
+    /**
+     * Finds trainings by their IDs together with their users.
+     *
+     * @param ids IDs of the trainings.
+     * @return list of the trainings that exist.
+     */
+    @EntityGraph(attributePaths = "user")
+    @Query("select t from Training t where t.id in :ids")
+    List<Training> findAllWithUserByIdIn(@Param("ids") Collection<Long> ids);
+
     /**
      * Finds all finished trainings after a specific date.
      *
      * @param afterTime the date to filter finished trainings.
      * @return list of trainings finished after the specified date.
      */
+    @EntityGraph(attributePaths = "user")
     List<Training> findAllByEndTimeAfter(Date afterTime);
 
     /**
@@ -34,8 +125,33 @@ public interface TrainingRepository extends JpaRepository<Training, Long> {
      * @param userId the user ID to filter trainings.
      * @return list of trainings for the specified user.
      */
+    @EntityGraph(attributePaths = "user")
     List<Training> findAllByUserId(Long userId);
 
+    /**
+     * Finds the most recent trainings of a specific user together with the user, newest first.
+     * Served by the {@code (user_id, start_time)} index.
+     *
+     * @param userId the user ID to filter trainings.
+     * @param pageable the number of trainings to return.
+     * @return the most recent trainings of the user.
+     */
+    @EntityGraph(attributePaths = "user")
+    List<Training> findAllByUserIdOrderByStartTimeDescIdDesc(Long userId, Pageable pageable);
+
+    /**
+     * Finds trainings of a specific user started within a half-open time range, ordered by start time.
+     * Served by a range scan of the {@code (user_id, start_time)} index.
+     *
+     * @param userId the user ID to filter trainings.
+     * @param from   the inclusive lower bound of the start time.
+     * @param to     the exclusive upper bound of the start time.
+     * @return list of the user's trainings started within the range.
+     */
+    @EntityGraph(attributePaths = "user")
+    @Query("select t from Training t where t.user.id = :userId and t.startTime >= :from and t.startTime < :to order by t.startTime")
+    List<Training> findAllByUserIdStartedBetween(@Param("userId") Long userId, @Param("from") Date from, @Param("to") Date to);
+
 
     /**
      * Finds trainings for a specific user within a date range.
@@ -56,4 +172,51 @@ public interface TrainingRepository extends JpaRepository<Training, Long> {
      * @return a list of trainings in the last month
      */
     List<Training> findAllByUserIdAndStartTimeBetween(Long userId, Date startOfMonth, Date endOfMonth);
+
+    /**
+     * Finds the oldest-ID trainings started before the given time, without their users.
+     *
+     * @param cutoff   the exclusive upper bound of the start time
+     * @param pageable page definition, only its size is used
+     * @return list of trainings started before the cutoff, ordered by ID
+     */
+    List<Training> findAllByStartTimeBeforeOrderByIdAsc(Date cutoff, Pageable pageable);
+
+    /**
+     * Counts trainings of a specific user.
+     *
+     * @param userId the user's id
+     * @return number of trainings of the user
+     */
+    long countByUserId(Long userId);
+
+    /**
+     * Finds a page of IDs of trainings of a specific user, ordered by ID.
+     *
+     * @param userId   the user's id
+     * @param pageable page definition, only its size is used
+     * @return IDs of the user's trainings
+     */
+    @Query("select t.id from Training t where t.user.id = :userId order by t.id")
+    List<Long> findIdsByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * Deletes all trainings of a specific user with a single bulk statement, without loading them.
+     *
+     * @param userId the user's id
+     * @return number of deleted trainings
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Training t where t.user.id = :userId")
+    int bulkDeleteByUserId(@Param("userId") Long userId);
+
+    /**
+     * Deletes the trainings with given IDs with a single bulk statement, without loading them.
+     *
+     * @param ids IDs of trainings to delete
+     * @return number of deleted trainings
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Training t where t.id in :ids")
+    int bulkDeleteByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,201 @@
+package com.capgemini.wsb.fitnesstracker.training.internal;
+
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingSampleDto;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact binary encoding of training sample series.
+ * A series starts with the format version byte and the number of samples, followed by the samples, each as six
+ * zigzag varints holding the difference to the previous sample: timestamp (ms), heart rate (bpm), speed (0.01 km/h),
+ * elevation (0.1 m), latitude and longitude (1e-7 degree). Samples recorded at 1 Hz take about 6-10 bytes each.
+ * Series are decoded sample by sample with a {@link Cursor} reading the stored bytes in place.
+ */
+final class TrainingSampleCodec {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final double SPEED_SCALE = 100;
+
+    private static final double ELEVATION_SCALE = 10;
+
+    private static final double COORDINATE_SCALE = 10_000_000;
+
+    private static final int MAX_VARINT_BYTES = 10;
+
+    private static final int FIELDS = 6;
+
+    private TrainingSampleCodec() {
+    }
+
+    /**
+     * Encodes the samples.
+     *
+     * @param samples the samples ordered by timestamp
+     * @return the encoded series
+     */
+    static byte[] encode(List<TrainingSampleDto> samples) {
+        byte[] buffer = new byte[1 + MAX_VARINT_BYTES + samples.size() * FIELDS * MAX_VARINT_BYTES];
+        buffer[0] = FORMAT_VERSION;
+        int position = writeVarint(buffer, 1, samples.size());
+
+        long timestamp = 0;
+        long heartRate = 0;
+        long speed = 0;
+        long elevation = 0;
+        long latitude = 0;
+        long longitude = 0;
+        for (TrainingSampleDto sample : samples) {
+            long nextSpeed = Math.round(sample.speed() * SPEED_SCALE);
+            long nextElevation = Math.round(sample.elevation() * ELEVATION_SCALE);
+            long nextLatitude = Math.round(sample.latitude() * COORDINATE_SCALE);
+            long nextLongitude = Math.round(sample.longitude() * COORDINATE_SCALE);
+            position = writeVarint(buffer, position, zigzag(sample.timestamp() - timestamp));
+            position = writeVarint(buffer, position, zigzag(sample.heartRate() - heartRate));
+            position = writeVarint(buffer, position, zigzag(nextSpeed - speed));
+            position = writeVarint(buffer, position, zigzag(nextElevation - elevation));
+            position = writeVarint(buffer, position, zigzag(nextLatitude - latitude));
+            position = writeVarint(buffer, position, zigzag(nextLongitude - longitude));
+            timestamp = sample.timestamp();
+            heartRate = sample.heartRate();
+            speed = nextSpeed;
+            elevation = nextElevation;
+            latitude = nextLatitude;
+            longitude = nextLongitude;
+        }
+        return Arrays.copyOf(buffer, position);
+    }
+
+    /**
+     * Opens a cursor over an encoded series.
+     *
+     * @param data the encoded series, which must not be modified while the cursor is used
+     * @return cursor positioned before the first sample
+     * @throws IllegalArgumentException if the data was not encoded by this codec
+     */
+    static Cursor cursor(byte[] data) {
+        if (data.length == 0 || data[0] != FORMAT_VERSION)
+            throw new IllegalArgumentException("Unsupported training samples format");
+        return new Cursor(data);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static int writeVarint(byte[] buffer, int position, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+        return position;
+    }
+
+    /**
+     * Forward-only cursor decoding an encoded series one sample at a time into primitive fields,
+     * without copying the data or allocating per sample.
+     */
+    static final class Cursor {
+
+        private final byte[] data;
+
+        private final int size;
+
+        private int position;
+
+        private int remaining;
+
+        private long timestamp;
+
+        private long heartRate;
+
+        private long speed;
+
+        private long elevation;
+
+        private long latitude;
+
+        private long longitude;
+
+        private Cursor(byte[] data) {
+            this.data = data;
+            this.position = 1;
+            this.size = (int) readVarint();
+            this.remaining = size;
+        }
+
+        /**
+         * @return number of samples in the series
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Moves to the next sample.
+         *
+         * @return false if there are no more samples
+         */
+        boolean next() {
+            if (remaining == 0)
+                return false;
+
+            timestamp += readZigzag();
+            heartRate += readZigzag();
+            speed += readZigzag();
+            elevation += readZigzag();
+            latitude += readZigzag();
+            longitude += readZigzag();
+            remaining--;
+            return true;
+        }
+
+        long timestamp() {
+            return timestamp;
+        }
+
+        int heartRate() {
+            return (int) heartRate;
+        }
+
+        double speed() {
+            return speed / SPEED_SCALE;
+        }
+
+        double elevation() {
+            return elevation / ELEVATION_SCALE;
+        }
+
+        double latitude() {
+            return latitude / COORDINATE_SCALE;
+        }
+
+        double longitude() {
+            return longitude / COORDINATE_SCALE;
+        }
+
+        TrainingSampleDto toDto() {
+            return new TrainingSampleDto(timestamp(), heartRate(), speed(), elevation(), latitude(), longitude());
+        }
+
+        private long readZigzag() {
+            long value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private long readVarint() {
+            long value = 0;
+            int shift = 0;
+            byte current;
+            do {
+                current = data[position++];
+                value |= (long) (current & 0x7F) << shift;
+                shift += 7;
+            } while (current < 0);
+            return value;
+        }
+    }
+
+}
@@ -0,0 +1,171 @@
+package com.capgemini.wsb.fitnesstracker.training.internal;
+
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingDto;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingNotFoundException;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingProvider;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingSampleDto;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingSamplesDto;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingsDeletedEvent;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingsDroppedEvent;
+import com.capgemini.wsb.fitnesstracker.training.api.UserTrainingsDeletedEvent;
+import jakarta.annotation.Nullable;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Stores the high-resolution sample series recorded by devices during trainings, one encoded series per training.
+ * Series are read through a {@link TrainingSampleCodec.Cursor}; downsampled reads keep only the running means of
+ * the current interval, so they never hold more than the returned samples in memory.
+ * Series are removed within the same transaction as the trainings of their user or the dropped old trainings.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class TrainingSampleStore {
+
+    private final TrainingSamplesRepository trainingSamplesRepository;
+
+    private final TrainingProvider trainingProvider;
+
+    private final TrainingProperties trainingProperties;
+
+    /**
+     * Stores the sample series of a training, replacing the previous one.
+     *
+     * @param trainingId ID of the training
+     * @param samples    the samples, in any order
+     * @return number of stored samples
+     * @throws TrainingNotFoundException if the training does not exist
+     * @throws IllegalArgumentException  if there are more samples than {@link TrainingProperties#getMaxSamples()}
+     */
+    @Transactional
+    int store(Long trainingId, List<TrainingSampleDto> samples) {
+        if (samples.size() > trainingProperties.getMaxSamples())
+            throw new IllegalArgumentException("Series of " + samples.size() + " samples exceeds the maximum of " + trainingProperties.getMaxSamples());
+        TrainingDto training = trainingProvider.getTraining(trainingId).orElseThrow(() -> new TrainingNotFoundException(trainingId));
+
+        List<TrainingSampleDto> ordered = samples.stream()
+                                                 .sorted(Comparator.comparingLong(TrainingSampleDto::timestamp))
+                                                 .toList();
+        byte[] data = TrainingSampleCodec.encode(ordered);
+        trainingSamplesRepository.save(new TrainingSamples(trainingId, training.user == null ? null : training.user.id(), ordered.size(), data));
+        log.debug("Stored {} samples of training {} in {} bytes", ordered.size(), trainingId, data.length);
+        return ordered.size();
+    }
+
+    /**
+     * Reads the sample series of a training.
+     *
+     * @param trainingId ID of the training
+     * @param resolution length of the intervals to downsample the series to, or null for all stored samples
+     * @return the series, or empty if no samples were stored for the training
+     * @throws IllegalArgumentException if the resolution is not positive
+     */
+    @Transactional(readOnly = true)
+    Optional<TrainingSamplesDto> find(Long trainingId, @Nullable Duration resolution) {
+        if (resolution != null && resolution.toMillis() <= 0)
+            throw new IllegalArgumentException("Resolution must be at least 1 ms");
+
+        return trainingSamplesRepository.findById(trainingId).map(stored -> {
+            TrainingSampleCodec.Cursor cursor = TrainingSampleCodec.cursor(stored.getData());
+            List<TrainingSampleDto> samples = resolution == null ? readAll(cursor) : downsample(cursor, resolution.toMillis());
+            return new TrainingSamplesDto(trainingId, cursor.size(), resolution == null ? null : resolution.toMillis(), samples);
+        });
+    }
+
+    @EventListener
+    void onUserTrainingsDeleted(UserTrainingsDeletedEvent event) {
+        trainingSamplesRepository.bulkDeleteByUserId(event.userId());
+    }
+
+    @EventListener
+    void onTrainingsDeleted(TrainingsDeletedEvent event) {
+        trainingSamplesRepository.bulkDeleteByTrainingIdIn(event.trainingIds());
+    }
+
+    @EventListener
+    void onTrainingsDropped(TrainingsDroppedEvent event) {
+        log.info("Deleted samples of {} dropped trainings", trainingSamplesRepository.bulkDeleteOrphaned());
+    }
+
+    private static List<TrainingSampleDto> readAll(TrainingSampleCodec.Cursor cursor) {
+        List<TrainingSampleDto> samples = new ArrayList<>(cursor.size());
+        while (cursor.next()) {
+            samples.add(cursor.toDto());
+        }
+        return samples;
+    }
+
+    /**
+     * Averages the samples within consecutive intervals of the given length, starting at the first sample.
+     * Intervals without samples are skipped.
+     */
+    private static List<TrainingSampleDto> downsample(TrainingSampleCodec.Cursor cursor, long intervalMillis) {
+        List<TrainingSampleDto> samples = new ArrayList<>();
+        Interval interval = null;
+        long origin = 0;
+        while (cursor.next()) {
+            if (interval == null)
+                origin = cursor.timestamp();
+            long start = origin + (cursor.timestamp() - origin) / intervalMillis * intervalMillis;
+            if (interval == null || interval.start != start) {
+                if (interval != null)
+                    samples.add(interval.toDto());
+                interval = new Interval(start);
+            }
+            interval.add(cursor);
+        }
+        if (interval != null)
+            samples.add(interval.toDto());
+        return samples;
+    }
+
+    private static final class Interval {
+
+        private final long start;
+
+        private int count;
+
+        private long heartRate;
+
+        private double speed;
+
+        private double elevation;
+
+        private double latitude;
+
+        private double longitude;
+
+        private Interval(long start) {
+            this.start = start;
+        }
+
+        private void add(TrainingSampleCodec.Cursor cursor) {
+            count++;
+            heartRate += cursor.heartRate();
+            speed += cursor.speed();
+            elevation += cursor.elevation();
+            latitude += cursor.latitude();
+            longitude += cursor.longitude();
+        }
+
+        private TrainingSampleDto toDto() {
+            return new TrainingSampleDto(start,
+                                         (int) Math.round((double) heartRate / count),
+                                         speed / count,
+                                         elevation / count,
+                                         latitude / count,
+                                         longitude / count);
+        }
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.capgemini.wsb.fitnesstracker.training.internal;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Sample series of a training, encoded by {@link TrainingSampleCodec} into a single binary value.
+ * The owner of the training is kept, so the series can be removed together with the user's trainings.
+ */
+@Entity
+@Table(name = "training_samples", indexes = @Index(name = "idx_training_samples_user", columnList = "user_id"))
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+@ToString
+class TrainingSamples {
+
+    @Id
+    @Column(name = "training_id")
+    private Long trainingId;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "sample_count", nullable = false)
+    private int sampleCount;
+
+    @Lob
+    @Column(name = "data", nullable = false)
+    @ToString.Exclude
+    private byte[] data;
+
+}
@@ -0,0 +1,44 @@
+package com.capgemini.wsb.fitnesstracker.training.internal;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+
+/**
+ * Repository interface for the sample series of trainings, keyed by the training ID.
+ */
+interface TrainingSamplesRepository extends JpaRepository<TrainingSamples, Long> {
+
+    /**
+     * Deletes the sample series of all trainings of a specific user with a single bulk statement, without loading them.
+     *
+     * @param userId the user's id
+     * @return number of deleted sample series
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from TrainingSamples s where s.userId = :userId")
+    int bulkDeleteByUserId(@Param("userId") Long userId);
+
+    /**
+     * Deletes the sample series of specific trainings with a single bulk statement, without loading them.
+     *
+     * @param trainingIds IDs of the trainings
+     * @return number of deleted sample series
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from TrainingSamples s where s.trainingId in :trainingIds")
+    int bulkDeleteByTrainingIdIn(@Param("trainingIds") Collection<Long> trainingIds);
+
+    /**
+     * Deletes the sample series of trainings that no longer exist with a single bulk statement, e.g. after old trainings were dropped.
+     *
+     * @return number of deleted sample series
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from TrainingSamples s where not exists (select t.id from Training t where t.id = s.trainingId)")
+    int bulkDeleteOrphaned();
+
+}
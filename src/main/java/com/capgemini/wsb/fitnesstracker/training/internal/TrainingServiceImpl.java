@@ -4,19 +4,40 @@ import com.capgemini.wsb.fitnesstracker.exception.api.NotFoundException;
 import com.capgemini.wsb.fitnesstracker.training.api.*;
 import com.capgemini.wsb.fitnesstracker.training.api.TrainingProvider;
 import com.capgemini.wsb.fitnesstracker.user.api.User;
+import com.capgemini.wsb.fitnesstracker.user.api.UserDeletedEvent;
+import com.capgemini.wsb.fitnesstracker.user.api.UserDto;
 import com.capgemini.wsb.fitnesstracker.user.api.UserNotFoundException;
 import com.capgemini.wsb.fitnesstracker.user.api.UserProvider;
 import com.capgemini.wsb.fitnesstracker.user.api.UserService;
 import com.capgemini.wsb.fitnesstracker.user.internal.UserMapper;
 import com.capgemini.wsb.fitnesstracker.user.internal.UserRepository;
+import jakarta.annotation.Nullable;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service implementation for managing training-related operations.
@@ -27,11 +48,20 @@ import java.util.stream.Collectors;
 @Slf4j
 public class TrainingServiceImpl implements TrainingProvider, TrainingService {
 
+    private static final Date EARLIEST_START_TIME = new Date(0);
+    private static final Date LATEST_START_TIME = Date.from(Instant.parse("9999-12-31T00:00:00Z"));
+    private static final int ID_FETCH_BATCH_SIZE = 1000;
+
     private final TrainingRepository trainingRepository;
     private final TrainingMapper trainingMapper;
     private final UserProvider userProvider;
     private final UserMapper userMapper;
     private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TrainingArchive trainingArchive;
+    private final TrainingBitmapIndex trainingBitmapIndex;
+    private final RecentTrainingsCache recentTrainingsCache;
 
     /**
      * Retrieves a training by its ID.
@@ -39,19 +69,75 @@ public class TrainingServiceImpl implements TrainingProvider, TrainingService {
      * @return an Optional containing the TrainingDto if found, or empty if not.
      */
     @Override
+    @Transactional(readOnly = true)
     public Optional<TrainingDto> getTraining(final Long trainingId) {
-        return trainingRepository.findById(trainingId).map(trainingMapper::toDto);
+        return trainingRepository.findById(trainingId)
+                .map(trainingMapper::toDto)
+                .or(() -> trainingArchive.findById(trainingId).map(archived -> withArchived(List.of(), List.of(archived)).get(0)));
     }
 
     /**
-     * Retrieves all trainings from the database.
+     * Retrieves all trainings from the database and the archive.
      * @return a list of TrainingDto objects representing all trainings.
      */
     @Override
+    @Transactional(readOnly = true)
     public List<TrainingDto> findAllTrainings() {
-        return trainingRepository.findAll().stream()
+        return withArchived(trainingRepository.findAll().stream()
                 .map(trainingMapper::toDto)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()), trainingArchive.findAll(training -> true));
+    }
+
+    /**
+     * Retrieves a page of trainings ordered by start time and ID.
+     * @param cursor position of the last training of the previous page, or null for the first page.
+     * @param limit maximum number of trainings to return.
+     * @return a list of TrainingDto objects following the cursor.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<TrainingDto> findTrainingsAfter(@Nullable TrainingCursor cursor, int limit) {
+        PageRequest page = PageRequest.ofSize(limit);
+        List<Training> trainings = cursor == null
+                ? trainingRepository.findAllByOrderByStartTimeAscIdAsc(page)
+                : trainingRepository.findPageAfter(cursor.startTime(), cursor.id(), page);
+        List<TrainingDto> merged = withArchived(trainings.stream()
+                .map(trainingMapper::toDto)
+                .collect(Collectors.toList()), trainingArchive.findAfter(
+                        cursor == null ? null : cursor.startTime(),
+                        cursor == null ? null : cursor.id(),
+                        limit));
+        return merged.size() > limit ? merged.subList(0, limit) : merged;
+    }
+
+    /**
+     * Streams all trainings through a database cursor, merged in order with the archived trainings.
+     * Every training is detached once it has been processed.
+     * @param action the action to be invoked for every training.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachTraining(Consumer<TrainingDto> action) {
+        try (Stream<Training> trainings = trainingRepository.streamAllOrderedByStartTime()) {
+            Iterator<Training> hot = trainings.iterator();
+            Iterator<ArchivedTraining> archived = trainingArchive.iterator();
+            Training nextHot = hot.hasNext() ? hot.next() : null;
+            ArchivedTraining nextArchived = archived.hasNext() ? archived.next() : null;
+            while (nextHot != null || nextArchived != null) {
+                int order = nextHot == null ? 1 : nextArchived == null ? -1 : compare(nextHot, nextArchived);
+                if (order <= 0) {
+                    action.accept(trainingMapper.toDto(nextHot));
+                    entityManager.detach(nextHot);
+                    entityManager.detach(nextHot.getUser());
+                    nextHot = hot.hasNext() ? hot.next() : null;
+                } else {
+                    UserDto user = userProvider.getUser(nextArchived.userId()).map(userMapper::toDto).orElse(null);
+                    action.accept(trainingMapper.toDto(nextArchived, user));
+                }
+                if (order >= 0)
+                    nextArchived = archived.hasNext() ? archived.next() : null;
+            }
+        }
     }
 
     /**
@@ -60,10 +146,50 @@ public class TrainingServiceImpl implements TrainingProvider, TrainingService {
      * @return a list of TrainingDto objects matching the specified activity type.
      */
     @Override
+    @Transactional(readOnly = true)
     public List<TrainingDto> findTrainingsByActivityType(ActivityType activityType) {
-        return trainingRepository.findAllByActivityType(activityType).stream()
+        return withArchived(trainingRepository.findAllByActivityType(activityType).stream()
                 .map(trainingMapper::toDto)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()), trainingArchive.findAll(training -> training.activityType() == activityType));
+    }
+
+    /**
+     * Finds trainings of a specific activity type started within a range of days.
+     * Matching IDs are found by intersecting bitmaps of the in-memory index and the trainings are fetched by ID in batches;
+     * until the index is built, the database is queried directly. Either way the trainings are ordered by start time and ID.
+     * @param activityType the type of activity to filter by.
+     * @param from the first day of the range, or null.
+     * @param to the last day of the range (inclusive), or null.
+     * @return a list of TrainingDto objects matching the criteria.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<TrainingDto> findTrainingsByActivityType(ActivityType activityType, @Nullable LocalDate from, @Nullable LocalDate to) {
+        Date lowerBound = from != null ? Date.from(from.atStartOfDay(ZoneId.systemDefault()).toInstant()) : EARLIEST_START_TIME;
+        Date upperBound = to != null ? Date.from(to.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant()) : LATEST_START_TIME;
+
+        List<Training> trainings;
+        if (trainingBitmapIndex.isReady()) {
+            Roaring64Bitmap ids = trainingBitmapIndex.find(activityType, from, to);
+            trainings = new ArrayList<>(Math.toIntExact(ids.getLongCardinality()));
+            List<Long> batch = new ArrayList<>(ID_FETCH_BATCH_SIZE);
+            LongIterator iterator = ids.getLongIterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == ID_FETCH_BATCH_SIZE || !iterator.hasNext()) {
+                    trainings.addAll(trainingRepository.findAllWithUserByIdIn(batch));
+                    batch.clear();
+                }
+            }
+            trainings.sort(Comparator.comparing(Training::getStartTime).thenComparing(Training::getId));
+        } else {
+            trainings = trainingRepository.findAllByActivityTypeStartedBetween(activityType, lowerBound, upperBound);
+        }
+
+        return withArchived(trainings.stream()
+                .map(trainingMapper::toDto)
+                .collect(Collectors.toList()), trainingArchive.findStartedBetween(lowerBound.getTime(), upperBound.getTime(),
+                                                                     training -> training.activityType() == activityType));
     }
 
     /**
@@ -72,10 +198,11 @@ public class TrainingServiceImpl implements TrainingProvider, TrainingService {
      * @return a list of TrainingDto objects representing trainings finished after the specified time.
      */
     @Override
+    @Transactional(readOnly = true)
     public List<TrainingDto> findFinishedTrainingsAfter(Date afterTime) {
-        return trainingRepository.findAllByEndTimeAfter(afterTime).stream()
+        return withArchived(trainingRepository.findAllByEndTimeAfter(afterTime).stream()
                 .map(trainingMapper::toDto)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()), trainingArchive.findFinishedAfter(afterTime.getTime()));
     }
 
     /**
@@ -84,10 +211,85 @@ public class TrainingServiceImpl implements TrainingProvider, TrainingService {
      * @return a list of TrainingDto objects belonging to the specified user.
      */
     @Override
+    @Transactional(readOnly = true)
     public List<TrainingDto> findTrainingsByUserId(Long userId) {
-        return trainingRepository.findAllByUserId(userId).stream()
+        return withArchived(trainingRepository.findAllByUserId(userId).stream()
+                .map(trainingMapper::toDto)
+                .collect(Collectors.toList()), trainingArchive.findByUserId(userId));
+    }
+
+    /**
+     * Finds the most recent trainings of a specific user, served from the recent trainings cache when possible.
+     * @param userId the ID of the user to filter trainings by.
+     * @param limit the maximum number of trainings.
+     * @return a list of TrainingDto objects ordered by start time, newest first.
+     */
+    @Override
+    public List<TrainingDto> findRecentTrainingsByUserId(Long userId, int limit) {
+        return recentTrainingsCache.get(userId, limit, this::loadRecentTrainings);
+    }
+
+    private List<TrainingDto> loadRecentTrainings(Long userId, int limit) {
+        List<TrainingDto> recent = trainingRepository.findAllByUserIdOrderByStartTimeDescIdDesc(userId, PageRequest.of(0, limit)).stream()
                 .map(trainingMapper::toDto)
                 .collect(Collectors.toList());
+        List<ArchivedTraining> archived = recent.size() < limit ? trainingArchive.findByUserId(userId) : List.of();
+        if (archived.isEmpty())
+            return recent;
+
+        List<TrainingDto> merged = new ArrayList<>(withArchived(recent, archived));
+        Collections.reverse(merged);
+        return new ArrayList<>(merged.subList(0, Math.min(limit, merged.size())));
+    }
+
+    /**
+     * Finds trainings of a specific user started within the given time range.
+     * Missing bounds are replaced with the earliest and latest representable start times.
+     * @param userId the ID of the user to filter trainings by.
+     * @param from the inclusive lower bound of the start time, or null.
+     * @param to the exclusive upper bound of the start time, or null.
+     * @return a list of TrainingDto objects ordered by start time.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<TrainingDto> findTrainingsByUserIdBetween(Long userId, @Nullable Date from, @Nullable Date to) {
+        Date lowerBound = from != null ? from : EARLIEST_START_TIME;
+        Date upperBound = to != null ? to : LATEST_START_TIME;
+        return withArchived(trainingRepository.findAllByUserIdStartedBetween(userId, lowerBound, upperBound).stream()
+                .map(trainingMapper::toDto)
+                .collect(Collectors.toList()), trainingArchive.findByUserId(userId).stream()
+                .filter(training -> training.startTime() >= lowerBound.getTime() && training.startTime() < upperBound.getTime())
+                .toList());
+    }
+
+    /**
+     * Merges trainings read from the database with archived ones, resolving the users of the archived trainings in one query.
+     * If any trainings were archived, the result is ordered by start time and ID; a training present in both is taken from the database.
+     * @param trainings trainings read from the database.
+     * @param archived archived trainings.
+     * @return the merged trainings.
+     */
+    private List<TrainingDto> withArchived(List<TrainingDto> trainings, List<ArchivedTraining> archived) {
+        if (archived.isEmpty())
+            return trainings;
+
+        Set<Long> hotIds = trainings.stream().map(training -> training.id).collect(Collectors.toSet());
+        Set<Long> userIds = archived.stream().map(ArchivedTraining::userId).collect(Collectors.toSet());
+        Map<Long, UserDto> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, userMapper::toDto));
+
+        List<TrainingDto> merged = new ArrayList<>(trainings);
+        for (ArchivedTraining training : archived) {
+            if (!hotIds.contains(training.id()))
+                merged.add(trainingMapper.toDto(training, users.get(training.userId())));
+        }
+        merged.sort(Comparator.comparing((TrainingDto training) -> training.startTime).thenComparing(training -> training.id));
+        return merged;
+    }
+
+    private static int compare(Training training, ArchivedTraining archived) {
+        int byStartTime = Long.compare(training.getStartTime().getTime(), archived.startTime());
+        return byStartTime != 0 ? byStartTime : Long.compare(training.getId(), archived.id());
     }
 
     /**
@@ -110,23 +312,59 @@ public class TrainingServiceImpl implements TrainingProvider, TrainingService {
         );
 
         trainingRepository.save(training);
+        eventPublisher.publishEvent(new TrainingSavedEvent(training));
 
         return trainingMapper.toDto(training);
     }
 
     /**
-     * Updates an existing training with new data.
+     * Updates an existing training with new data. Only the fields provided in the update are changed.
      * @param trainingId the ID of the training to update.
-     * @param trainingUpdateDto the new data to update the training with.
+     * @param trainingUpdateDto the new data to update the training with and, optionally, its expected version.
      * @return the updated TrainingDto object.
      * @throws TrainingNotFoundException if the specified training does not exist.
+     * @throws TrainingVersionConflictException if the training does not have the expected version.
+     * @throws TrainingArchivedException if the training was moved to the read-only archive.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the training was changed concurrently.
      */
     @Override
+    @Transactional
     public TrainingDto updateTraining(Long trainingId, TrainingUpdateDto trainingUpdateDto) {
-        Training existingTraining = trainingRepository.findById(trainingUpdateDto.getId()).orElseThrow(()->new TrainingNotFoundException("Training not found"));
-        if (trainingUpdateDto.getDistance() != 0)
-            existingTraining.setDistance(trainingUpdateDto.getDistance());
+        Training existingTraining = trainingRepository.findById(trainingId).orElseThrow(() -> trainingArchive.findById(trainingId).isPresent()
+                ? new TrainingArchivedException(trainingId)
+                : new TrainingNotFoundException(trainingId));
+        trainingMapper.applyUpdate(existingTraining, trainingUpdateDto);
+        trainingRepository.flush();
 
+        eventPublisher.publishEvent(new TrainingSavedEvent(existingTraining));
         return trainingMapper.toDto(existingTraining);
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countTrainingsOfUser(Long userId) {
+        return trainingRepository.countByUserId(userId);
+    }
+
+    @Override
+    @Transactional
+    public int deleteTrainingsOfUser(Long userId, int limit) {
+        List<Long> ids = trainingRepository.findIdsByUserId(userId, PageRequest.of(0, limit));
+        if (ids.isEmpty())
+            return 0;
+
+        int deleted = trainingRepository.bulkDeleteByIdIn(ids);
+        eventPublisher.publishEvent(new TrainingsDeletedEvent(userId, ids));
+        return deleted;
+    }
+
+    /**
+     * Deletes all trainings of the user within the transaction deleting the user.
+     */
+    @EventListener
+    void onUserDeleted(UserDeletedEvent event) {
+        int deleted = trainingRepository.bulkDeleteByUserId(event.userId());
+        eventPublisher.publishEvent(new UserTrainingsDeletedEvent(event.userId()));
+        log.info("Deleted {} trainings of User {}", deleted, event.userId());
+    }
 }
@@ -1,6 +1,11 @@
 package com.capgemini.wsb.fitnesstracker.user.api;
 
-public class DuplicateEmailException extends RuntimeException {
+import com.capgemini.wsb.fitnesstracker.exception.api.BusinessException;
+
+/**
+ * Exception indicating that the email of a created or updated {@link User} already belongs to another user.
+ */
+public class DuplicateEmailException extends BusinessException {
     public DuplicateEmailException(String email) {
         super("Email " + email + " is taken");
     }
@@ -1,21 +1,39 @@
 package com.capgemini.wsb.fitnesstracker.user.api;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.annotation.Nullable;
 import jakarta.persistence.*;
 import lombok.*;
 
 import java.time.LocalDate;
+import java.util.Locale;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users",
+       uniqueConstraints = @UniqueConstraint(name = User.EMAIL_CONSTRAINT, columnNames = "email"),
+       indexes = {
+               @Index(name = User.EMAIL_NORMALIZED_INDEX, columnList = "email_normalized", unique = true),
+               @Index(name = "idx_users_birthdate_id", columnList = "birthdate, id")
+       })
 @Getter
 @Setter // lab 2
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString
 public class User {
 
+    /**
+     * Name of the unique constraint of {@link #email}.
+     */
+    public static final String EMAIL_CONSTRAINT = "uk_users_email";
+
+    /**
+     * Name of the unique index of {@link #emailNormalized}.
+     */
+    public static final String EMAIL_NORMALIZED_INDEX = "idx_users_email_normalized";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     @Nullable
     private Long id;
 
@@ -28,9 +46,17 @@ public class User {
     @Column(name = "birthdate", nullable = false)
     private LocalDate birthdate;
 
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String email;
 
+    /**
+     * Lower-cased, trimmed copy of {@link #email}, used for the indexed case-insensitive lookup.
+     */
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    @Column(name = "email_normalized", nullable = false)
+    private String emailNormalized;
+
     public User(
             final String firstName,
             final String lastName,
@@ -40,11 +66,31 @@ public class User {
         this.firstName = firstName;
         this.lastName = lastName;
         this.birthdate = birthdate;
+        setEmail(email);
+    }
+
+    public void setEmail(String email) {
         this.email = email;
+        this.emailNormalized = normalizeEmail(email);
     }
 
     public void update(String firstName, String lastName, LocalDate birthdate, String email) {
 
     }
-}
 
+    /**
+     * Normalizes the email address to the form stored in the {@code email_normalized} column.
+     *
+     * @param email email address to normalize
+     * @return trimmed, lower-cased email or {@code null} if {@code null} was given
+     */
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @PrePersist
+    @PreUpdate
+    void syncEmailNormalized() {
+        this.emailNormalized = normalizeEmail(email);
+    }
+}
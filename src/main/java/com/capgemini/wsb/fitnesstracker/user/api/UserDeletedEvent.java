@@ -0,0 +1,11 @@
+package com.capgemini.wsb.fitnesstracker.user.api;
+
+/**
+ * Published by {@link UserService#deleteUser(Long)} inside the deleting transaction, right before the user row is removed.
+ * Modules owning rows that reference the user delete them from a plain {@code @EventListener}, so they are removed
+ * together with the user or not at all; effects outside the database belong in an after-commit listener.
+ *
+ * @param userId ID of the deleted user
+ */
+public record UserDeletedEvent(Long userId) {
+}
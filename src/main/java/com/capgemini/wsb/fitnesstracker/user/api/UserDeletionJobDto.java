@@ -0,0 +1,29 @@
+package com.capgemini.wsb.fitnesstracker.user.api;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * Progress of an asynchronous deletion of a user together with their trainings and statistics.
+ *
+ * @param jobId            ID of the deletion job
+ * @param userId           ID of the deleted user
+ * @param status           current state of the job
+ * @param totalTrainings   number of the user's trainings when the job started
+ * @param deletedTrainings number of trainings deleted so far
+ * @param error            reason of the failure, if the job failed
+ */
+public record UserDeletionJobDto(String jobId,
+                                 Long userId,
+                                 Status status,
+                                 long totalTrainings,
+                                 long deletedTrainings,
+                                 @Nullable String error) {
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+}
@@ -0,0 +1,14 @@
+package com.capgemini.wsb.fitnesstracker.user.api;
+
+import java.util.List;
+
+/**
+ * Summary of a bulk user import.
+ *
+ * @param created    number of created users
+ * @param duplicates number of rows skipped because the email is already taken
+ * @param rejected   number of rows that could not be read or were invalid
+ * @param rows       per-row outcome, in the order of the imported file
+ */
+public record UserImportResultDto(int created, int duplicates, int rejected, List<UserImportRowDto> rows) {
+}
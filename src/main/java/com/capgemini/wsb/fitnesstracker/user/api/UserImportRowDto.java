@@ -0,0 +1,22 @@
+package com.capgemini.wsb.fitnesstracker.user.api;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * Outcome of a single row of a bulk user import.
+ *
+ * @param row     1-based number of the row in the imported file
+ * @param email   email of the imported user, if the row could be read
+ * @param status  outcome of the row
+ * @param id      ID of the created user, if the row was imported
+ * @param message reason why the row was not imported
+ */
+public record UserImportRowDto(int row, @Nullable String email, Status status, @Nullable Long id, @Nullable String message) {
+
+    public enum Status {
+        CREATED,
+        DUPLICATE,
+        REJECTED
+    }
+
+}
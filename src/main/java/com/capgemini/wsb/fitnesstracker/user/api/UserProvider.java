@@ -1,7 +1,11 @@
 package com.capgemini.wsb.fitnesstracker.user.api;
 
+import jakarta.annotation.Nullable;
+
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface UserProvider {
 
@@ -30,4 +34,78 @@ public interface UserProvider {
      */
     List<User> findAllUsers();
 
+    /**
+     * Searches users whose first name, last name or email starts with the given prefix (case-insensitive).
+     *
+     * @param query the prefix to search for
+     * @param limit maximum number of users to return
+     * @return A list of at most {@code limit} matching users
+     */
+    List<User> searchUsers(String query, int limit);
+
+    /**
+     * Retrieves a single page of users ordered by ID, using the last seen ID as the cursor.
+     *
+     * @param afterId ID of the last user of the previous page, or {@code null} for the first page
+     * @param limit   maximum number of users to return
+     * @return A list of at most {@code limit} users with ID greater than {@code afterId}
+     */
+    List<User> findUsersAfter(@Nullable Long afterId, int limit);
+
+    /**
+     * Retrieves a single page of users' basic information (ID, first name, last name), ordered by ID.
+     * Users are read as projections, without loading the full entities.
+     *
+     * @param afterId ID of the last user of the previous page, or {@code null} for the first page
+     * @param limit   maximum number of users to return
+     * @return A list of at most {@code limit} {@link SimpleUserDto} with ID greater than {@code afterId}
+     */
+    List<SimpleUserDto> findSimpleUsersAfter(@Nullable Long afterId, int limit);
+
+    /**
+     * Retrieves a single page of users' IDs and emails, ordered by ID.
+     * Users are read as projections, without loading the full entities.
+     *
+     * @param afterId ID of the last user of the previous page, or {@code null} for the first page
+     * @param limit   maximum number of users to return
+     * @return A list of at most {@code limit} {@link UserEmailDto} with ID greater than {@code afterId}
+     */
+    List<UserEmailDto> findUserEmailsAfter(@Nullable Long afterId, int limit);
+
+    /**
+     * Retrieves the ID and email of the user with the given email, without loading the full entity.
+     *
+     * @param email The email of the user to be searched
+     * @return An {@link Optional} containing the located user's {@link UserEmailDto}, or {@link Optional#empty()} if not found
+     */
+    Optional<UserEmailDto> findUserEmailByEmail(String email);
+
+    /**
+     * Retrieves a single page of users born before the given date, ordered by birthdate and ID, using the birthdate
+     * and ID of the last seen user as the cursor.
+     *
+     * @param birthdate      the date (exclusive) before which the users were born
+     * @param afterBirthdate birthdate of the last user of the previous page, or {@code null} for the first page
+     * @param afterId        ID of the last user of the previous page, or {@code null} for the first page
+     * @param limit          maximum number of users to return
+     * @return A list of at most {@code limit} matching users positioned after {@code (afterBirthdate, afterId)}
+     */
+    List<User> findUsersBornBefore(LocalDate birthdate, @Nullable LocalDate afterBirthdate, @Nullable Long afterId, int limit);
+
+    /**
+     * Counts users born before the given date.
+     *
+     * @param birthdate the date (exclusive) before which the users were born
+     * @return number of matching users
+     */
+    long countUsersBornBefore(LocalDate birthdate);
+
+    /**
+     * Passes every user, ordered by ID, to the given action, reading them through a database cursor.
+     * Users are detached after the action returns, so memory use does not grow with the number of users.
+     *
+     * @param action action to be invoked for every user
+     */
+    void forEachUser(Consumer<User> action);
+
 }
@@ -0,0 +1,11 @@
+package com.capgemini.wsb.fitnesstracker.user.api;
+
+/**
+ * Published by {@link UserService#updateUser(Long, UserDto)} once the changed user was saved and flushed.
+ * The service opens no transaction of its own, so when called from a controller the change is already committed;
+ * a caller running its own transaction gets the event inside it, before its commit.
+ *
+ * @param userId ID of the updated user
+ */
+public record UserUpdatedEvent(Long userId) {
+}
@@ -0,0 +1,162 @@
+package com.capgemini.wsb.fitnesstracker.user.internal;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter of the normalized emails of all users, used to skip the database lookup for emails that are definitely new.
+ * The filter never forgets an email (deleted or changed emails stay in it), which only raises the false-positive rate;
+ * the unique constraint on the {@code users} table remains the authoritative duplicate check.
+ * Size, fill and observed false positives are published as {@code user.email.bloom.*} metrics.
+ */
+@Component
+@Slf4j
+class EmailBloomFilter {
+
+    private final AtomicLongArray words;
+
+    private final long bitCount;
+
+    private final int hashFunctions;
+
+    private final UserRepository userRepository;
+
+    private final PlatformTransactionManager transactionManager;
+
+    private final AtomicLong insertions = new AtomicLong();
+
+    private final Counter definitelyNew;
+
+    private final Counter maybePresent;
+
+    private final Counter falsePositives;
+
+    EmailBloomFilter(UserProperties userProperties,
+                     UserRepository userRepository,
+                     PlatformTransactionManager transactionManager,
+                     MeterRegistry meterRegistry) {
+        UserProperties.BloomFilter properties = userProperties.getEmailBloomFilter();
+        long expectedInsertions = Math.max(1, properties.getExpectedInsertions());
+        double fpp = properties.getFalsePositiveProbability();
+        if (fpp <= 0 || fpp >= 1)
+            throw new IllegalArgumentException("False-positive probability must be between 0 and 1, was " + fpp);
+
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        this.words = new AtomicLongArray(Math.toIntExact((bits + 63) / 64));
+        this.bitCount = words.length() * 64L;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        this.userRepository = userRepository;
+        this.transactionManager = transactionManager;
+
+        Gauge.builder("user.email.bloom.size", this, filter -> filter.bitCount).baseUnit("bits").register(meterRegistry);
+        Gauge.builder("user.email.bloom.hash.functions", this, filter -> filter.hashFunctions).register(meterRegistry);
+        Gauge.builder("user.email.bloom.configured.fpp", () -> fpp).register(meterRegistry);
+        Gauge.builder("user.email.bloom.expected.fpp", this, EmailBloomFilter::expectedFalsePositiveProbability).register(meterRegistry);
+        FunctionCounter.builder("user.email.bloom.insertions", insertions, AtomicLong::get).register(meterRegistry);
+        this.definitelyNew = Counter.builder("user.email.bloom.checks").tag("result", "definitely-new").register(meterRegistry);
+        this.maybePresent = Counter.builder("user.email.bloom.checks").tag("result", "maybe-present").register(meterRegistry);
+        this.falsePositives = Counter.builder("user.email.bloom.false.positives").register(meterRegistry);
+    }
+
+    /**
+     * Adds the normalized emails of all users stored in the database to the filter.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void populate() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.executeWithoutResult(status -> {
+            try (Stream<String> emails = userRepository.streamAllEmailsNormalized()) {
+                emails.forEach(this::put);
+            }
+        });
+        log.info("Email Bloom filter populated with {} emails ({} bits, {} hash functions)", insertions.get(), bitCount, hashFunctions);
+    }
+
+    /**
+     * Checks whether the email may already be taken.
+     *
+     * @param emailNormalized normalized email to check
+     * @return {@code false} if the email is definitely not taken, {@code true} if it may be taken
+     */
+    boolean mightContain(String emailNormalized) {
+        long hash = hash(emailNormalized);
+        long h1 = (int) hash;
+        long h2 = hash >>> 32;
+        for (int i = 1; i <= hashFunctions; i++) {
+            long bit = index(h1 + i * h2);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                definitelyNew.increment();
+                return false;
+            }
+        }
+        maybePresent.increment();
+        return true;
+    }
+
+    void put(String emailNormalized) {
+        long hash = hash(emailNormalized);
+        long h1 = (int) hash;
+        long h2 = hash >>> 32;
+        for (int i = 1; i <= hashFunctions; i++) {
+            long bit = index(h1 + i * h2);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = words.get(word);
+            } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+        }
+        insertions.incrementAndGet();
+    }
+
+    /**
+     * Records that {@link #mightContain(String)} returned {@code true} for an email that turned out not to be taken.
+     */
+    void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    private double expectedFalsePositiveProbability() {
+        long setBits = 0;
+        for (int i = 0; i < words.length(); i++) {
+            setBits += Long.bitCount(words.get(i));
+        }
+        return Math.pow((double) setBits / bitCount, hashFunctions);
+    }
+
+    private long index(long combinedHash) {
+        return Math.floorMod(combinedHash, bitCount);
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the UTF-8 bytes, finished with the MurmurHash3 avalanche step.
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+}
@@ -0,0 +1,138 @@
+package com.capgemini.wsb.fitnesstracker.user.internal;
+
+import com.capgemini.wsb.fitnesstracker.user.api.User;
+import com.capgemini.wsb.fitnesstracker.user.api.UserDto;
+import com.capgemini.wsb.fitnesstracker.user.api.UserImportResultDto;
+import com.capgemini.wsb.fitnesstracker.user.api.UserImportRowDto;
+import com.capgemini.wsb.fitnesstracker.user.api.UserImportRowDto.Status;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Imports large numbers of users at once.
+ * Rows are consumed in chunks of {@link UserProperties#getImportBatchSize()}; every chunk is deduplicated against the
+ * database with a single set-based query, inserted with JDBC batching and committed in its own transaction.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class UserBulkImporter {
+
+    private final UserRepository userRepository;
+
+    private final UserMapper userMapper;
+
+    private final UserProperties userProperties;
+
+    private final EntityManager entityManager;
+
+    private final PlatformTransactionManager transactionManager;
+
+    private final UserSearchIndex userSearchIndex;
+
+    private final EmailBloomFilter emailBloomFilter;
+
+    /**
+     * Imports all users provided by the iterator. Reading stops at the first row that cannot be read.
+     *
+     * @param users the users to be imported, in the order of the imported file.
+     * @return the per-row summary of the import.
+     */
+    UserImportResultDto importUsers(Iterator<UserDto> users) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int batchSize = Math.max(1, userProperties.getImportBatchSize());
+        List<UserImportRowDto> results = new ArrayList<>();
+        List<UserDto> chunk = new ArrayList<>(batchSize);
+
+        while (true) {
+            UserDto next;
+            try {
+                if (!users.hasNext())
+                    break;
+                next = users.next();
+            } catch (RuntimeException e) {
+                importChunk(transaction, chunk, results);
+                chunk.clear();
+                results.add(new UserImportRowDto(results.size() + 1, null, Status.REJECTED, null, "Row could not be read: " + e.getMessage()));
+                break;
+            }
+
+            chunk.add(next);
+            if (chunk.size() == batchSize) {
+                importChunk(transaction, chunk, results);
+                chunk.clear();
+            }
+        }
+        importChunk(transaction, chunk, results);
+
+        int created = (int) results.stream().filter(row -> row.status() == Status.CREATED).count();
+        int duplicates = (int) results.stream().filter(row -> row.status() == Status.DUPLICATE).count();
+        log.info("Imported {} users, {} duplicates, {} rejected", created, duplicates, results.size() - created - duplicates);
+        return new UserImportResultDto(created, duplicates, results.size() - created - duplicates, results);
+    }
+
+    private void importChunk(TransactionTemplate transaction, List<UserDto> chunk, List<UserImportRowDto> results) {
+        if (chunk.isEmpty())
+            return;
+
+        int firstRow = results.size() + 1;
+        List<User> created = new ArrayList<>();
+        try {
+            results.addAll(transaction.execute(status -> insertChunk(chunk, firstRow, created)));
+            created.forEach(userSearchIndex::add);
+        } catch (DataAccessException e) {
+            log.warn("Bulk import of rows {}-{} failed", firstRow, firstRow + chunk.size() - 1, e);
+            for (int i = 0; i < chunk.size(); i++) {
+                results.add(new UserImportRowDto(firstRow + i, chunk.get(i).email(), Status.REJECTED, null, "Batch failed: " + e.getMostSpecificCause().getMessage()));
+            }
+        }
+    }
+
+    private List<UserImportRowDto> insertChunk(List<UserDto> chunk, int firstRow, List<User> created) {
+        Set<String> emails = new HashSet<>();
+        for (UserDto userDto : chunk) {
+            if (isValid(userDto))
+                emails.add(User.normalizeEmail(userDto.email()));
+        }
+        Set<String> taken = new HashSet<>(emails.isEmpty() ? Set.of() : userRepository.findTakenEmailsNormalized(emails));
+
+        List<UserImportRowDto> rows = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            UserDto userDto = chunk.get(i);
+            int row = firstRow + i;
+            if (!isValid(userDto)) {
+                rows.add(new UserImportRowDto(row, userDto.email(), Status.REJECTED, null, "First name, last name, birthdate and email are required"));
+            } else if (!taken.add(User.normalizeEmail(userDto.email()))) {
+                rows.add(new UserImportRowDto(row, userDto.email(), Status.DUPLICATE, null, "Email " + userDto.email() + " is taken"));
+            } else {
+                emailBloomFilter.put(User.normalizeEmail(userDto.email()));
+                User user = userRepository.save(userMapper.toEntity(userDto));
+                created.add(user);
+                rows.add(new UserImportRowDto(row, userDto.email(), Status.CREATED, user.getId(), null));
+            }
+        }
+
+        userRepository.flush();
+        entityManager.clear();
+        return rows;
+    }
+
+    private static boolean isValid(UserDto userDto) {
+        return userDto.firstName() != null && !userDto.firstName().isBlank()
+                && userDto.lastName() != null && !userDto.lastName().isBlank()
+                && userDto.birthdate() != null
+                && userDto.email() != null && !userDto.email().isBlank();
+    }
+
+}
@@ -0,0 +1,196 @@
+package com.capgemini.wsb.fitnesstracker.user.internal;
+
+import com.capgemini.wsb.fitnesstracker.user.api.User;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, TTL-based read-through cache of {@link User} entities, keyed by ID and by normalized email.
+ * Users are cached as immutable snapshots and every hit returns a new detached {@link User}, so callers never share
+ * an instance, nor one managed by the persistence context of the request that loaded it.
+ * Hit, miss and eviction counts are published as {@code user.cache.*} metrics.
+ */
+@Component
+class UserCache {
+
+    private final boolean enabled;
+
+    private final int maxSize;
+
+    private final long ttlNanos;
+
+    private final LinkedHashMap<Long, Entry> usersById = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Map<String, Long> idsByEmail = new HashMap<>();
+
+    /**
+     * Incremented on every invalidation, so that a value loaded concurrently with an invalidation is not cached.
+     */
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    UserCache(UserProperties userProperties, MeterRegistry meterRegistry) {
+        UserProperties.Cache properties = userProperties.getCache();
+        this.enabled = properties.isEnabled();
+        this.maxSize = properties.getMaxSize();
+        this.ttlNanos = properties.getTtl().toNanos();
+
+        FunctionCounter.builder("user.cache.requests", hits, AtomicLong::get).tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("user.cache.requests", misses, AtomicLong::get).tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("user.cache.evictions", evictions, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("user.cache.size", this, UserCache::size).register(meterRegistry);
+    }
+
+    /**
+     * Returns the user with the given ID, loading and caching it on a miss.
+     *
+     * @param userId ID of the user
+     * @param loader loads the user from the database
+     * @return the located user or {@link Optional#empty()} if not found
+     */
+    Optional<User> get(Long userId, Function<Long, Optional<User>> loader) {
+        if (!enabled)
+            return loader.apply(userId);
+
+        CachedUser cached = lookup(userId);
+        return cached != null ? Optional.of(cached.toUser()) : load(() -> loader.apply(userId));
+    }
+
+    /**
+     * Returns the user with the given normalized email, loading and caching it on a miss.
+     *
+     * @param emailNormalized normalized email of the user, see {@link User#normalizeEmail(String)}
+     * @param loader          loads the user from the database
+     * @return the located user or {@link Optional#empty()} if not found
+     */
+    Optional<User> getByEmail(String emailNormalized, Function<String, Optional<User>> loader) {
+        if (!enabled)
+            return loader.apply(emailNormalized);
+
+        CachedUser cached = lookupByEmail(emailNormalized);
+        return cached != null ? Optional.of(cached.toUser()) : load(() -> loader.apply(emailNormalized));
+    }
+
+    /**
+     * Removes the user with the given ID from the cache, both immediately and once the current transaction (if any) completes,
+     * so that a concurrent reader cannot re-cache the state from before the commit.
+     *
+     * @param userId ID of the modified or deleted user
+     */
+    void invalidate(Long userId) {
+        evict(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(userId);
+                }
+            });
+        }
+    }
+
+    synchronized int size() {
+        return usersById.size();
+    }
+
+    private synchronized CachedUser lookup(Long userId) {
+        Entry entry = usersById.get(userId);
+        if (entry == null || isExpired(entry)) {
+            if (entry != null)
+                remove(userId, true);
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.user();
+    }
+
+    private synchronized CachedUser lookupByEmail(String emailNormalized) {
+        Long userId = idsByEmail.get(emailNormalized);
+        if (userId == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        return lookup(userId);
+    }
+
+    private Optional<User> load(Supplier<Optional<User>> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            loadGeneration = generation;
+        }
+        Optional<User> user = loader.get();
+        user.ifPresent(loaded -> put(loaded, loadGeneration));
+        return user;
+    }
+
+    private synchronized void put(User user, long loadGeneration) {
+        if (loadGeneration != generation || user.getId() == null)
+            return;
+
+        remove(user.getId(), false);
+        usersById.put(user.getId(), new Entry(CachedUser.of(user), System.nanoTime() + ttlNanos));
+        idsByEmail.put(user.getEmailNormalized(), user.getId());
+
+        while (usersById.size() > maxSize) {
+            remove(usersById.keySet().iterator().next(), true);
+        }
+    }
+
+    private synchronized void evict(Long userId) {
+        generation++;
+        remove(userId, false);
+    }
+
+    private void remove(Long userId, boolean eviction) {
+        Entry removed = usersById.remove(userId);
+        if (removed == null)
+            return;
+
+        idsByEmail.remove(User.normalizeEmail(removed.user().email()), userId);
+        if (eviction)
+            evictions.incrementAndGet();
+    }
+
+    private boolean isExpired(Entry entry) {
+        return System.nanoTime() - entry.expiresAt() > 0;
+    }
+
+    private record Entry(CachedUser user, long expiresAt) {
+    }
+
+    /**
+     * Immutable snapshot of a {@link User}, taken when it is put into the cache.
+     */
+    private record CachedUser(Long id, String firstName, String lastName, LocalDate birthdate, String email) {
+
+        private static CachedUser of(User user) {
+            return new CachedUser(user.getId(), user.getFirstName(), user.getLastName(), user.getBirthdate(), user.getEmail());
+        }
+
+        private User toUser() {
+            User user = new User(firstName, lastName, birthdate, email);
+            user.setId(id);
+            return user;
+        }
+    }
+
+}
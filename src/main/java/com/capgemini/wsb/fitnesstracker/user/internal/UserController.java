@@ -1,13 +1,25 @@
 package com.capgemini.wsb.fitnesstracker.user.internal;
 
+import com.capgemini.wsb.fitnesstracker.exception.api.BusinessException;
 import com.capgemini.wsb.fitnesstracker.user.api.*;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import com.capgemini.wsb.fitnesstracker.user.api.UserDto;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * REST controller responsible for handling user-related HTTP requests.
@@ -19,22 +31,80 @@ import java.util.List;
 @RequiredArgsConstructor
 class UserController {
 
+    /**
+     * Response header carrying the cursor (usually the last returned user ID) to be passed as {@code after} to fetch the next page.
+     */
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final String BIRTHDATE_CURSOR_SEPARATOR = "_";
+
     private final UserServiceImpl userService;
 
     private final UserMapper userMapper;
 
+    private final UserProperties userProperties;
+
+    private final UserBulkImporter userBulkImporter;
+
+    private final UserDeletionJobs userDeletionJobs;
+
+    private final ObjectMapper objectMapper;
+
     /**
-     * Retrieves all users in the system.
+     * Retrieves a page of users, ordered by ID.
+     * If the page is full, the {@value #NEXT_CURSOR_HEADER} header holds the cursor of the next page.
      *
-     * @return a list of UserDto objects representing all users.
+     * @param after the ID of the last user of the previous page, or null for the first page.
+     * @param size the optional page size, capped by the configured maximum.
+     * @return a list of UserDto objects representing the page of users.
      */
 
     @GetMapping
-    public List<UserDto> getAllUsers() {
-        return userService.findAllUsers()
-                          .stream()
-                          .map(userMapper::toDto)
-                          .toList();
+    public ResponseEntity<List<UserDto>> getAllUsers(@RequestParam(required = false) Long after,
+                                                     @RequestParam(required = false) Integer size) {
+        int limit = userProperties.resolvePageSize(size);
+        List<UserDto> users = userService.findUsersAfter(after, limit)
+                                         .stream()
+                                         .map(userMapper::toDto)
+                                         .toList();
+        return page(users, limit, UserDto::id);
+    }
+
+    /**
+     * Streams all users in the system as a JSON array, writing every element as soon as it is read from the database.
+     *
+     * @return a streaming JSON array of UserDto objects.
+     */
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllUsers() {
+        StreamingResponseBody body = outputStream -> {
+            JsonGenerator generator = objectMapper.createGenerator(outputStream);
+            generator.writeStartArray();
+            userService.forEachUser(user -> {
+                try {
+                    generator.writeObject(userMapper.toDto(user));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+            generator.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * Type-ahead search of users by the prefix of their first name, last name or email.
+     *
+     * @param q the case-insensitive prefix to search for.
+     * @param limit the optional maximum number of results, capped by the configured maximum page size.
+     * @return a list of UserDto objects of the matching users.
+     */
+
+    @GetMapping("/search")
+    public List<UserDto> searchUsers(@RequestParam String q, @RequestParam(required = false) Integer limit) {
+        return userService.searchUsers(q, userProperties.resolvePageSize(limit)).stream().map(userMapper::toDto).toList();
     }
 
     /**
@@ -52,18 +122,24 @@ class UserController {
 
     /**
      * Retrieves a list of users filtered by their email.
-     * If no email is provided, returns all users.
+     * If no email is provided, returns a page of all users.
      *
      * @param email the optional email to filter users by.
+     * @param after the ID of the last user of the previous page, used when no email is provided.
+     * @param size the optional page size, used when no email is provided.
      * @return a list of UserEmailDto objects with user ID and email.
      */
 
     @GetMapping("/email") // lab 2
-    public List<UserEmailDto> getUsersByEmail(@RequestParam(required = false) String email) {
+    public ResponseEntity<List<UserEmailDto>> getUsersByEmail(@RequestParam(required = false) String email,
+                                                              @RequestParam(required = false) Long after,
+                                                              @RequestParam(required = false) Integer size) {
         if (email != null)
-            return userService.getUserByEmail(email).stream().map(userMapper::toUserEmailDto).toList();
+            return ResponseEntity.ok(userService.findUserEmailByEmail(email).stream().toList());
 
-        return userService.findAllUsers().stream().map(userMapper::toUserEmailDto).toList();
+        int limit = userProperties.resolvePageSize(size);
+        List<UserEmailDto> users = userService.findUserEmailsAfter(after, limit);
+        return page(users, limit, UserEmailDto::id);
     }
 
     /**
@@ -72,14 +148,11 @@ class UserController {
      * @param userId the ID of the user to update.
      * @param userDto the UserDto with updated user details.
      * @return the updated UserDto.
-     * @throws DuplicateEmailException if the new email already exists in the system.
+     * @throws DuplicateEmailException if the new email already belongs to another user.
      */
 
     @PutMapping("/{userId}") // lab 2
     public UserDto updateUser(@PathVariable Long userId, @RequestBody UserDto userDto) {
-        if (userService.getUserByEmail(userDto.email()).isPresent())
-            throw new DuplicateEmailException(userDto.email());
-
         User updatedUser = userService.updateUser(userId, userDto);
         return userMapper.toDto(updatedUser);
     }
@@ -96,6 +169,34 @@ class UserController {
         userService.deleteUser(userId);
     }
 
+    /**
+     * Schedules the deletion of a user with a large number of trainings in the background.
+     *
+     * @param userId the ID of the user to delete.
+     * @return the state of the scheduled deletion job, which can be polled at the returned location.
+     * @throws UserNotFoundException if no user with the provided ID is found.
+     */
+
+    @DeleteMapping(value = "/{userId}", params = "async=true")
+    public ResponseEntity<UserDeletionJobDto> deleteUserAsync(@PathVariable Long userId) {
+        UserDeletionJobDto job = userDeletionJobs.start(userId);
+        return ResponseEntity.accepted()
+                             .location(URI.create("/v1/users/deletions/" + job.jobId()))
+                             .body(job);
+    }
+
+    /**
+     * Reports the progress of an asynchronous user deletion.
+     *
+     * @param jobId the ID of the deletion job.
+     * @return the state of the deletion job.
+     */
+
+    @GetMapping("/deletions/{jobId}")
+    public ResponseEntity<UserDeletionJobDto> getDeletionJob(@PathVariable String jobId) {
+        return ResponseEntity.of(userDeletionJobs.get(jobId));
+    }
+
     /**
      * Creates a new user.
      *
@@ -110,35 +211,100 @@ class UserController {
     public User addUser(@RequestBody UserDto userDto) throws InterruptedException {
         System.out.println("User with e-mail: " + userDto.email() + "passed to the request");
 
-        if (userService.getUserByEmail(userDto.email()).isPresent())
-            throw new DuplicateEmailException(userDto.email());
-
         User user = userMapper.toEntity(userDto);
         return userService.createUser(user);
     }
 
     /**
-     * Retrieves a list of users with basic information (ID, first name, last name).
+     * Creates many users at once from a newline-delimited JSON (NDJSON) body, one UserDto per line.
+     * The body is parsed as a stream; rows with an email that is already taken are skipped.
+     *
+     * @param body the NDJSON request body.
+     * @return the per-row summary of the import.
+     * @throws IOException if the request body cannot be read.
+     */
+
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public UserImportResultDto importUsers(InputStream body) throws IOException {
+        try (MappingIterator<UserDto> users = objectMapper.readerFor(UserDto.class).readValues(body)) {
+            return userBulkImporter.importUsers(users);
+        }
+    }
+
+    /**
+     * Retrieves a page of users with basic information (ID, first name, last name).
      *
+     * @param after the ID of the last user of the previous page, or null for the first page.
+     * @param size the optional page size, capped by the configured maximum.
      * @return a list of SimpleUserDto objects.
      */
 
     @GetMapping("/simple")
-    public List<SimpleUserDto> getSimpleUsers() {
-        return userService.findAllUsers().stream().map(userMapper::toSimpleUserDto).toList();
+    public ResponseEntity<List<SimpleUserDto>> getSimpleUsers(@RequestParam(required = false) Long after,
+                                                              @RequestParam(required = false) Integer size) {
+        int limit = userProperties.resolvePageSize(size);
+        List<SimpleUserDto> users = userService.findSimpleUsersAfter(after, limit);
+        return page(users, limit, SimpleUserDto::userId);
     }
 
     /**
-     * Retrieves a list of users who were born before a specific date.
+     * Retrieves a page of users who were born before a specific date, ordered by birthdate and ID.
+     * The cursor of this endpoint has the form {@code yyyy-MM-dd_id}, holding the birthdate and ID of the last user.
      *
      * @param date the cutoff birthdate in the format "yyyy-MM-dd".
+     * @param after the cursor of the previous page, or null for the first page.
+     * @param size the optional page size, capped by the configured maximum.
      * @return a list of UserDto objects representing users born before the specified date.
      */
 
     @GetMapping("/older-than/{date}")
-    public List<UserDto> getUserByDate(@PathVariable String date) {
+    public ResponseEntity<List<UserDto>> getUserByDate(@PathVariable String date,
+                                                       @RequestParam(required = false) String after,
+                                                       @RequestParam(required = false) Integer size) {
         LocalDate beforeDate = LocalDate.parse(date);
-        return userService.findAllUsers().stream().filter(user -> user.getBirthdate().isBefore(beforeDate)).map(userMapper::toDto).toList();
+        int limit = userProperties.resolvePageSize(size);
+        LocalDate afterBirthdate = null;
+        Long afterId = null;
+        if (after != null) {
+            int separator = after.indexOf(BIRTHDATE_CURSOR_SEPARATOR);
+            try {
+                afterBirthdate = LocalDate.parse(after.substring(0, Math.max(separator, 0)));
+                afterId = Long.valueOf(after.substring(separator + 1));
+            } catch (RuntimeException e) {
+                throw new BusinessException("Invalid cursor " + after);
+            }
+        }
+        List<UserDto> users = userService.findUsersBornBefore(beforeDate, afterBirthdate, afterId, limit).stream().map(userMapper::toDto).toList();
+        return page(users, limit, user -> user.birthdate() + BIRTHDATE_CURSOR_SEPARATOR + user.id());
+    }
+
+    /**
+     * Counts users who were born before a specific date, without loading them.
+     *
+     * @param date the cutoff birthdate in the format "yyyy-MM-dd".
+     * @return the number of users born before the specified date.
+     */
+
+    @GetMapping("/older-than/{date}/count")
+    public long countUsersByDate(@PathVariable String date) {
+        return userService.countUsersBornBefore(LocalDate.parse(date));
+    }
+
+    /**
+     * Wraps a keyset page into the response, adding the next page cursor if the page is full.
+     *
+     * @param content the users of the current page.
+     * @param limit the requested page size.
+     * @param cursorOf function extracting the cursor, e.g. the user ID, from an element of the page.
+     * @return the response containing the page.
+     */
+
+    private static <T> ResponseEntity<List<T>> page(List<T> content, int limit, Function<T, ?> cursorOf) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!content.isEmpty() && content.size() == limit)
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(cursorOf.apply(content.get(content.size() - 1))));
+
+        return response.body(content);
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,117 @@
+package com.capgemini.wsb.fitnesstracker.user.internal;
+
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingService;
+import com.capgemini.wsb.fitnesstracker.user.api.UserDeletionJobDto;
+import com.capgemini.wsb.fitnesstracker.user.api.UserDeletionJobDto.Status;
+import com.capgemini.wsb.fitnesstracker.user.api.UserNotFoundException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs deletions of users with very large numbers of trainings in the background.
+ * Trainings are deleted in chunks of {@link UserProperties#getDeletionChunkSize()} through {@link TrainingService},
+ * each in its own short transaction, so the progress can be reported; the user, statistics and any remaining trainings are then removed by
+ * {@link UserServiceImpl#deleteUser(Long)} in one final transaction.
+ */
+@Component
+@Slf4j
+class UserDeletionJobs {
+
+    private static final int MAX_FINISHED_JOBS = 1000;
+
+    private final UserRepository userRepository;
+
+    private final TrainingService trainingService;
+
+    private final UserServiceImpl userService;
+
+    private final int chunkSize;
+
+    private final Map<String, UserDeletionJobDto> jobs = new ConcurrentHashMap<>();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-deletion");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    UserDeletionJobs(UserRepository userRepository,
+                     TrainingService trainingService,
+                     UserServiceImpl userService,
+                     UserProperties userProperties) {
+        this.userRepository = userRepository;
+        this.trainingService = trainingService;
+        this.userService = userService;
+        this.chunkSize = Math.max(1, userProperties.getDeletionChunkSize());
+    }
+
+    /**
+     * Schedules the deletion of the user.
+     *
+     * @param userId the ID of the user to be deleted.
+     * @return the state of the scheduled job.
+     * @throws UserNotFoundException if no user with the provided ID is found.
+     */
+    UserDeletionJobDto start(Long userId) {
+        if (!userRepository.existsById(userId))
+            throw new UserNotFoundException(userId);
+
+        removeFinishedJobs();
+        String jobId = UUID.randomUUID().toString();
+        UserDeletionJobDto job = new UserDeletionJobDto(jobId, userId, Status.QUEUED, 0, 0, null);
+        jobs.put(jobId, job);
+        executor.execute(() -> run(job));
+        return job;
+    }
+
+    Optional<UserDeletionJobDto> get(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(UserDeletionJobDto job) {
+        Long userId = job.userId();
+        long total = trainingService.countTrainingsOfUser(userId);
+        long deleted = 0;
+        update(job, Status.RUNNING, total, deleted, null);
+        try {
+            while (true) {
+                int deletedInChunk = trainingService.deleteTrainingsOfUser(userId, chunkSize);
+                if (deletedInChunk == 0)
+                    break;
+                deleted += deletedInChunk;
+                update(job, Status.RUNNING, total, deleted, null);
+            }
+            userService.deleteUser(userId);
+            update(job, Status.COMPLETED, total, deleted, null);
+            log.info("Deletion job {} of User {} completed, {} trainings deleted", job.jobId(), userId, deleted);
+        } catch (RuntimeException e) {
+            log.error("Deletion job {} of User {} failed", job.jobId(), userId, e);
+            update(job, Status.FAILED, total, deleted, e.getMessage());
+        }
+    }
+
+    private void update(UserDeletionJobDto job, Status status, long total, long deleted, String error) {
+        jobs.put(job.jobId(), new UserDeletionJobDto(job.jobId(), job.userId(), status, total, deleted, error));
+    }
+
+    private void removeFinishedJobs() {
+        if (jobs.size() < MAX_FINISHED_JOBS)
+            return;
+
+        jobs.values().removeIf(job -> job.status() == Status.COMPLETED || job.status() == Status.FAILED);
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.capgemini.wsb.fitnesstracker.user.internal;
+
+import com.capgemini.wsb.fitnesstracker.web.api.PageSizeProperties;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the user module.
+ */
+@ConfigurationProperties(prefix = "fitnesstracker.user")
+@Getter
+@Setter
+@RequiredArgsConstructor
+class UserProperties extends PageSizeProperties {
+
+    /**
+     * Number of rows of a bulk import that are deduplicated, inserted and committed together.
+     */
+    private int importBatchSize = 500;
+
+    /**
+     * Number of trainings deleted per transaction by an asynchronous user deletion.
+     */
+    private int deletionChunkSize = 1000;
+
+    /**
+     * Read-through cache of users looked up by ID or email.
+     */
+    private final Cache cache = new Cache();
+
+    /**
+     * Bloom filter used as a pre-check for duplicate emails.
+     */
+    private final BloomFilter emailBloomFilter = new BloomFilter();
+
+    @Getter
+    @Setter
+    static class Cache {
+
+        /**
+         * Whether user lookups by ID and email are cached.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Maximum number of cached users; the least recently used ones are evicted first.
+         */
+        private int maxSize = 10_000;
+
+        /**
+         * Time after which a cached user is reloaded from the database.
+         */
+        private Duration ttl = Duration.ofMinutes(10);
+
+    }
+
+    @Getter
+    @Setter
+    static class BloomFilter {
+
+        /**
+         * Number of distinct emails the filter is sized for.
+         */
+        private long expectedInsertions = 1_000_000;
+
+        /**
+         * False-positive probability of the filter once it holds the expected number of emails.
+         */
+        private double falsePositiveProbability = 0.01;
+
+    }
+
+}
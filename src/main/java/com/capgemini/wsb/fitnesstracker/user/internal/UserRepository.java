@@ -1,27 +1,154 @@
 package com.capgemini.wsb.fitnesstracker.user.internal;
 
+import com.capgemini.wsb.fitnesstracker.user.api.SimpleUserDto;
 import com.capgemini.wsb.fitnesstracker.user.api.User;
+import com.capgemini.wsb.fitnesstracker.user.api.UserEmailDto;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.stereotype.Repository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-import java.util.Objects;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 
     /**
-     * Query searching users by email address. It matches by exact match.
+     * Query searching users by email address. It matches case-insensitively, using the indexed normalized email column.
      *
      * @param email email of the user to search
      * @return {@link Optional} containing found user or {@link Optional#empty()} if none matched
      */
-
     default Optional<User> findByEmail(String email) {
-        return findAll().stream()
-                        .filter(user -> Objects.equals(user.getEmail(), email))
-                        .findFirst();
+        return findByEmailNormalized(User.normalizeEmail(email));
     }
 
-   
+    /**
+     * Query searching users by the normalized (trimmed, lower-cased) email address.
+     *
+     * @param emailNormalized normalized email of the user to search, see {@link User#normalizeEmail(String)}
+     * @return {@link Optional} containing found user or {@link Optional#empty()} if none matched
+     */
+    Optional<User> findByEmailNormalized(String emailNormalized);
+
+    /**
+     * Set-based lookup of the normalized emails that are already taken, served by the normalized email index.
+     *
+     * @param emailsNormalized normalized emails to check
+     * @return the subset of {@code emailsNormalized} that already belongs to some user
+     */
+    @Query("select u.emailNormalized from User u where u.emailNormalized in :emails")
+    Set<String> findTakenEmailsNormalized(@Param("emails") Collection<String> emailsNormalized);
+
+    /**
+     * Set-based lookup of the user IDs that exist, without loading the users.
+     *
+     * @param ids user IDs to check
+     * @return the subset of {@code ids} that belong to existing users
+     */
+    @Query("select u.id from User u where u.id in :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Streams the normalized emails of all users through a database cursor. Must be consumed within a transaction and closed afterwards.
+     *
+     * @return {@link Stream} of all normalized emails
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select u.emailNormalized from User u")
+    Stream<String> streamAllEmailsNormalized();
+
+    /**
+     * Keyset page of users ordered by ID.
+     *
+     * @param afterId  ID after which the page starts (exclusive)
+     * @param pageable page definition, only its size is used
+     * @return users with ID greater than {@code afterId}, ordered by ID
+     */
+    List<User> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    /**
+     * Keyset page of users projected straight into {@link SimpleUserDto}, without loading managed entities.
+     *
+     * @param afterId  ID after which the page starts (exclusive)
+     * @param pageable page definition, only its size is used
+     * @return projections of users with ID greater than {@code afterId}, ordered by ID
+     */
+    @Query("select new com.capgemini.wsb.fitnesstracker.user.api.SimpleUserDto(u.id, u.firstName, u.lastName) from User u where u.id > :afterId order by u.id")
+    List<SimpleUserDto> findSimpleUsersAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Keyset page of users projected straight into {@link UserEmailDto}, without loading managed entities.
+     *
+     * @param afterId  ID after which the page starts (exclusive)
+     * @param pageable page definition, only its size is used
+     * @return projections of users with ID greater than {@code afterId}, ordered by ID
+     */
+    @Query("select new com.capgemini.wsb.fitnesstracker.user.api.UserEmailDto(u.id, u.email) from User u where u.id > :afterId order by u.id")
+    List<UserEmailDto> findUserEmailsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Query searching a user by the normalized email, projected straight into {@link UserEmailDto}.
+     *
+     * @param emailNormalized normalized email of the user to search, see {@link User#normalizeEmail(String)}
+     * @return {@link Optional} containing the projection of the found user or {@link Optional#empty()} if none matched
+     */
+    @Query("select new com.capgemini.wsb.fitnesstracker.user.api.UserEmailDto(u.id, u.email) from User u where u.emailNormalized = :email")
+    Optional<UserEmailDto> findUserEmailByEmailNormalized(@Param("email") String emailNormalized);
+
+    /**
+     * First keyset page of users born before the given date, ordered by birthdate and ID.
+     * Served by the {@code (birthdate, id)} index, which yields the rows already in the requested order.
+     *
+     * @param birthdate date (exclusive) before which the users were born
+     * @param pageable  page definition, only its size is used
+     * @return users born before {@code birthdate}, ordered by birthdate and ID
+     */
+    List<User> findByBirthdateBeforeOrderByBirthdateAscIdAsc(LocalDate birthdate, Pageable pageable);
+
+    /**
+     * Next keyset page of users born before the given date, ordered by birthdate and ID, starting after the given
+     * {@code (birthdate, id)} position. Served by the {@code (birthdate, id)} index as a single range scan.
+     *
+     * @param birthdate      date (exclusive) before which the users were born
+     * @param afterBirthdate birthdate of the last user of the previous page
+     * @param afterId        ID of the last user of the previous page
+     * @param pageable       page definition, only its size is used
+     * @return users born before {@code birthdate} positioned after {@code (afterBirthdate, afterId)}, ordered by birthdate and ID
+     */
+    @Query("""
+            select u from User u
+            where u.birthdate < :birthdate
+              and (u.birthdate > :afterBirthdate or (u.birthdate = :afterBirthdate and u.id > :afterId))
+            order by u.birthdate, u.id
+            """)
+    List<User> findUsersBornBeforeAfter(@Param("birthdate") LocalDate birthdate,
+                                        @Param("afterBirthdate") LocalDate afterBirthdate,
+                                        @Param("afterId") Long afterId,
+                                        Pageable pageable);
+
+    /**
+     * Counts users born before the given date.
+     *
+     * @param birthdate date (exclusive) before which the users were born
+     * @return number of matching users
+     */
+    long countByBirthdateBefore(LocalDate birthdate);
+
+    /**
+     * Streams all users ordered by ID through a database cursor. Must be consumed within a transaction and closed afterwards.
+     *
+     * @return {@link Stream} of all users
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select u from User u order by u.id")
+    Stream<User> streamAllOrderedById();
 
 }
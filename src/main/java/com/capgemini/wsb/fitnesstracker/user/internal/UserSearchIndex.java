@@ -0,0 +1,118 @@
+package com.capgemini.wsb.fitnesstracker.user.internal;
+
+import com.capgemini.wsb.fitnesstracker.user.api.User;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+/**
+ * In-memory prefix index of users by first name, last name and email.
+ * Every indexed token is stored as a sorted key {@code token + '\0' + userId}, so a prefix query is a range scan
+ * over the sorted set that stops as soon as enough users were found.
+ * The index is built from the database on application startup and kept current by {@link UserServiceImpl}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class UserSearchIndex {
+
+    private static final char SEPARATOR = '\0';
+
+    private final ConcurrentSkipListSet<String> keys = new ConcurrentSkipListSet<>();
+
+    private final UserRepository userRepository;
+
+    private final EntityManager entityManager;
+
+    private final PlatformTransactionManager transactionManager;
+
+    @EventListener(ApplicationReadyEvent.class)
+    void rebuild() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.executeWithoutResult(status -> {
+            try (Stream<User> users = userRepository.streamAllOrderedById()) {
+                users.forEach(user -> {
+                    add(user);
+                    entityManager.detach(user);
+                });
+            }
+        });
+        log.info("User search index built with {} keys", keys.size());
+    }
+
+    /**
+     * Returns IDs of users having a first name, last name or email starting with the given prefix (case-insensitive).
+     *
+     * @param prefix prefix to search for
+     * @param limit  maximum number of IDs to return
+     * @return IDs of matching users, ordered by the matched token
+     */
+    List<Long> search(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty())
+            return List.of();
+
+        Set<Long> userIds = new LinkedHashSet<>();
+        for (String key : keys.subSet(normalized, true, normalized + Character.MAX_VALUE, false)) {
+            userIds.add(Long.valueOf(key.substring(key.lastIndexOf(SEPARATOR) + 1)));
+            if (userIds.size() >= limit)
+                break;
+        }
+        return new ArrayList<>(userIds);
+    }
+
+    /**
+     * Computes the index keys of the user in its current state.
+     *
+     * @param user the indexed user
+     * @return the index keys of the user
+     */
+    List<String> keysOf(User user) {
+        if (user.getId() == null)
+            return List.of();
+
+        return Stream.of(user.getFirstName(), user.getLastName(), user.getEmail())
+                     .map(UserSearchIndex::normalize)
+                     .filter(token -> !token.isEmpty())
+                     .map(token -> token + SEPARATOR + user.getId())
+                     .toList();
+    }
+
+    void add(User user) {
+        keys.addAll(keysOf(user));
+    }
+
+    void remove(List<String> userKeys) {
+        keys.removeAll(userKeys);
+    }
+
+    /**
+     * Replaces the keys of the user's previous state with the keys of its current state.
+     *
+     * @param previousKeys keys computed with {@link #keysOf(User)} before the user was modified
+     * @param user         the modified user
+     */
+    void replace(List<String> previousKeys, User user) {
+        remove(previousKeys);
+        add(user);
+    }
+
+    private static String normalize(String token) {
+        return token == null ? "" : token.trim().toLowerCase(Locale.ROOT);
+    }
+
+}
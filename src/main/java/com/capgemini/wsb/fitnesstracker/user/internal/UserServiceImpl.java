@@ -2,12 +2,29 @@ package com.capgemini.wsb.fitnesstracker.user.internal;
 
 import com.capgemini.wsb.fitnesstracker.user.api.*;
 import com.capgemini.wsb.fitnesstracker.user.api.UserDto;
+import jakarta.annotation.Nullable;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service implementation for CRUD operations.
@@ -20,12 +37,23 @@ class UserServiceImpl implements UserService, UserProvider {
 
     private final UserRepository userRepository;
 
+    private final EntityManager entityManager;
+
+    private final UserCache userCache;
+
+    private final UserSearchIndex userSearchIndex;
+
+    private final EmailBloomFilter emailBloomFilter;
+
+    private final ApplicationEventPublisher eventPublisher;
+
     /**
      * Creates a new user in the system.
      *
      * @param user the User entity to be created.
      * @return the created User entity.
      * @throws IllegalArgumentException if the user already has a database ID (indicating it exists in the database).
+     * @throws DuplicateEmailException if a user with the provided email already exists.
      */
 
     @Override
@@ -34,21 +62,31 @@ class UserServiceImpl implements UserService, UserProvider {
         if (user.getId() != null) {
             throw new IllegalArgumentException("User has already DB ID, update is not permitted!");
         }
-        return userRepository.save(user);
+        checkEmailAvailable(user.getEmail(), null);
+        User createdUser = saveCheckingEmail(user);
+        userSearchIndex.add(createdUser);
+        return createdUser;
     }
 
     /**
-     * Deletes a user from the system by their ID.
+     * Deletes a user from the system by their ID, together with all their trainings and statistics.
+     * The modules owning the dependent rows remove them with bulk delete statements on the published {@link UserDeletedEvent},
+     * all within a single transaction. The user is removed from the search index only once the transaction commits.
      *
      * @param userId the ID of the user to be deleted.
      * @throws UserNotFoundException if no user with the provided ID is found.
      */
 
     @Override // lab 2
+    @Transactional
     public void deleteUser(final Long userId) {
         User user = userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException(userId));
         log.info("Deleting User {}", userId);
+        eventPublisher.publishEvent(new UserDeletedEvent(userId));
         userRepository.delete(user);
+        userCache.invalidate(userId);
+        List<String> searchKeys = userSearchIndex.keysOf(user);
+        afterCommit(() -> userSearchIndex.remove(searchKeys));
     }
 
     /**
@@ -58,11 +96,13 @@ class UserServiceImpl implements UserService, UserProvider {
      * @param userDto the data transfer object containing user information.
      * @return the updated User entity.
      * @throws UserNotFoundException if no user with the provided ID is found.
+     * @throws DuplicateEmailException if the new email already belongs to another user.
      */
 
     @Override // lab 2
     public User updateUser(final Long userId, final UserDto userDto) {
         User user = userRepository.findById(userId).orElseThrow(()-> new UserNotFoundException(userId));
+        List<String> previousSearchKeys = userSearchIndex.keysOf(user);
 
         if (userDto.firstName() != null)
             user.setFirstName(userDto.firstName());
@@ -70,15 +110,21 @@ class UserServiceImpl implements UserService, UserProvider {
             user.setLastName(userDto.lastName());
         if (userDto.birthdate() != null)
             user.setBirthdate(userDto.birthdate());
-        if (userDto.email() != null)
+        if (userDto.email() != null) {
+            checkEmailAvailable(userDto.email(), userId);
             user.setEmail(userDto.email());
+        }
 
         log.info("Updating User {}", userId);
-        return userRepository.save(user);
+        User updatedUser = saveCheckingEmail(user);
+        userCache.invalidate(userId);
+        userSearchIndex.replace(previousSearchKeys, updatedUser);
+        eventPublisher.publishEvent(new UserUpdatedEvent(userId));
+        return updatedUser;
     }
 
     /**
-     * Retrieves a user by their ID.
+     * Retrieves a user by their ID, served from the user cache when possible.
      *
      * @param userId the ID of the user to be retrieved.
      * @return an Optional containing the User entity, or empty if not found.
@@ -86,11 +132,11 @@ class UserServiceImpl implements UserService, UserProvider {
 
     @Override
     public Optional<User> getUser(final Long userId) {
-        return userRepository.findById(userId).stream().findFirst();
+        return userCache.get(userId, userRepository::findById);
     }
 
     /**
-     * Retrieves a user by their email address.
+     * Retrieves a user by their email address, served from the user cache when possible.
      *
      * @param email the email address of the user to be retrieved.
      * @return an Optional containing the User entity, or empty if not found.
@@ -98,7 +144,7 @@ class UserServiceImpl implements UserService, UserProvider {
 
     @Override
     public Optional<User> getUserByEmail(final String email) {
-        return userRepository.findByEmail(email);
+        return userCache.getByEmail(User.normalizeEmail(email), userRepository::findByEmailNormalized);
     }
 
     /**
@@ -108,10 +154,196 @@ class UserServiceImpl implements UserService, UserProvider {
      */
 
     @Override
+    @Transactional(readOnly = true)
     public List<User> findAllUsers() {
         return userRepository.findAll();
     }
 
+    /**
+     * Searches users whose first name, last name or email starts with the given prefix, using the in-memory search index.
+     *
+     * @param query the case-insensitive prefix to search for.
+     * @param limit the maximum number of users to return.
+     * @return a List of matching User entities, ordered by the matched name or email.
+     */
+
+    @Override
+    public List<User> searchUsers(final String query, final int limit) {
+        List<Long> userIds = userSearchIndex.search(query, limit);
+        Map<Long, User> usersById = userRepository.findAllById(userIds).stream()
+                                                  .collect(Collectors.toMap(User::getId, Function.identity()));
+        return userIds.stream().map(usersById::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Retrieves a page of users ordered by ID, starting after the given ID.
+     *
+     * @param afterId the ID of the last user already seen, or null to start from the beginning.
+     * @param limit the maximum number of users to return.
+     * @return a List of at most limit User entities.
+     */
+
+    @Override
+    public List<User> findUsersAfter(@Nullable final Long afterId, final int limit) {
+        return userRepository.findByIdGreaterThanOrderByIdAsc(afterId == null ? 0L : afterId, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Retrieves a page of SimpleUserDto projections ordered by ID, starting after the given ID.
+     *
+     * @param afterId the ID of the last user already seen, or null to start from the beginning.
+     * @param limit the maximum number of users to return.
+     * @return a List of at most limit SimpleUserDto objects.
+     */
+
+    @Override
+    public List<SimpleUserDto> findSimpleUsersAfter(@Nullable final Long afterId, final int limit) {
+        return userRepository.findSimpleUsersAfter(afterId == null ? 0L : afterId, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Retrieves a page of UserEmailDto projections ordered by ID, starting after the given ID.
+     *
+     * @param afterId the ID of the last user already seen, or null to start from the beginning.
+     * @param limit the maximum number of users to return.
+     * @return a List of at most limit UserEmailDto objects.
+     */
+
+    @Override
+    public List<UserEmailDto> findUserEmailsAfter(@Nullable final Long afterId, final int limit) {
+        return userRepository.findUserEmailsAfter(afterId == null ? 0L : afterId, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Retrieves the UserEmailDto projection of the user with the given email.
+     *
+     * @param email the email address of the user to be retrieved.
+     * @return an Optional containing the UserEmailDto, or empty if not found.
+     */
+
+    @Override
+    public Optional<UserEmailDto> findUserEmailByEmail(final String email) {
+        return userRepository.findUserEmailByEmailNormalized(User.normalizeEmail(email));
+    }
+
+    /**
+     * Retrieves a page of users born before the given date, ordered by birthdate and ID, starting after the given position.
+     *
+     * @param birthdate the date (exclusive) before which the users were born.
+     * @param afterBirthdate the birthdate of the last user already seen, or null to start from the beginning.
+     * @param afterId the ID of the last user already seen, or null to start from the beginning.
+     * @param limit the maximum number of users to return.
+     * @return a List of at most limit User entities.
+     */
+
+    @Override
+    public List<User> findUsersBornBefore(final LocalDate birthdate,
+                                          @Nullable final LocalDate afterBirthdate,
+                                          @Nullable final Long afterId,
+                                          final int limit) {
+        if (afterBirthdate == null || afterId == null)
+            return userRepository.findByBirthdateBeforeOrderByBirthdateAscIdAsc(birthdate, PageRequest.of(0, limit));
+        return userRepository.findUsersBornBeforeAfter(birthdate, afterBirthdate, afterId, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Counts users born before the given date.
+     *
+     * @param birthdate the date (exclusive) before which the users were born.
+     * @return the number of matching users.
+     */
+
+    @Override
+    public long countUsersBornBefore(final LocalDate birthdate) {
+        return userRepository.countByBirthdateBefore(birthdate);
+    }
+
+    /**
+     * Streams all users through a database cursor, detaching each one once it has been processed.
+     *
+     * @param action the action to be invoked for every user.
+     */
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachUser(final Consumer<User> action) {
+        try (Stream<User> users = userRepository.streamAllOrderedById()) {
+            users.forEach(user -> {
+                action.accept(user);
+                entityManager.detach(user);
+            });
+        }
+    }
+
+    /**
+     * Runs the action after the current transaction commits, or right away outside of a transaction.
+     *
+     * @param action the action to be run.
+     */
+
+    private static void afterCommit(final Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Pre-checks that the email does not belong to another user. Emails unknown to the Bloom filter skip the database lookup.
+     * The check is not atomic with the following insert or update; concurrent duplicates are caught by the unique constraint in {@link #saveCheckingEmail(User)}.
+     *
+     * @param email the email to be checked.
+     * @param userId the ID of the user the email is assigned to, or null for a new user.
+     * @throws DuplicateEmailException if the email belongs to another user.
+     */
+
+    private void checkEmailAvailable(final String email, @Nullable final Long userId) {
+        String emailNormalized = User.normalizeEmail(email);
+        if (emailBloomFilter.mightContain(emailNormalized)) {
+            Optional<UserEmailDto> owner = userRepository.findUserEmailByEmailNormalized(emailNormalized);
+            if (owner.isEmpty())
+                emailBloomFilter.recordFalsePositive();
+            else if (!Objects.equals(owner.get().id(), userId))
+                throw new DuplicateEmailException(email);
+        }
+        emailBloomFilter.put(emailNormalized);
+    }
+
+    /**
+     * Saves and flushes the user, translating a violation of the unique email constraint into {@link DuplicateEmailException}.
+     *
+     * @param user the user to be saved.
+     * @return the saved User entity.
+     */
 
+    private User saveCheckingEmail(final User user) {
+        try {
+            return userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            if (violatesEmailConstraint(e))
+                throw new DuplicateEmailException(user.getEmail());
+            throw e;
+        }
+    }
+
+    /**
+     * Checks whether the violated constraint is one of the unique constraints of the email.
+     * Databases may report the name qualified by schema or with the index definition, so the name is matched as a part.
+     */
+    private static boolean violatesEmailConstraint(final DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+                String constraintName = violation.getConstraintName().toLowerCase(Locale.ROOT);
+                return constraintName.contains(User.EMAIL_NORMALIZED_INDEX) || constraintName.contains(User.EMAIL_CONSTRAINT);
+            }
+        }
+        return false;
+    }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,37 @@
+package com.capgemini.wsb.fitnesstracker.web.api;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Generic page size configuration of a module's listing endpoints.
+ * Extended by the module's configuration properties, so the settings are bound under the module's prefix.
+ */
+@Getter
+@Setter
+public abstract class PageSizeProperties {
+
+    /**
+     * Number of items returned by the listing endpoints when the client does not ask for a page size.
+     */
+    private int defaultPageSize = 100;
+
+    /**
+     * Upper bound for the page size a client may ask for.
+     */
+    private int maxPageSize = 1000;
+
+    /**
+     * Resolves the page size requested by the client against the configured default and maximum.
+     *
+     * @param requested page size requested by the client, may be {@code null}
+     * @return page size to be used
+     */
+    public int resolvePageSize(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(requested, maxPageSize);
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.capgemini.wsb.fitnesstracker.web.internal;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Serves and accepts {@code application/cbor} and {@code application/x-jackson-smile} besides JSON,
+ * chosen by the {@code Accept} and {@code Content-Type} headers. JSON stays the default.
+ * The binary formats use the application's Jackson settings, but encode dates as epoch milliseconds.
+ */
+@Configuration
+class BinaryFormatsConfig {
+
+    @Bean
+    MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.createXmlMapper(false)
+                                                                  .factory(new CBORFactory())
+                                                                  .annotationIntrospector(new EpochMillisAnnotationIntrospector())
+                                                                  .build());
+    }
+
+    @Bean
+    MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.createXmlMapper(false)
+                                                                   .factory(new SmileFactory())
+                                                                   .annotationIntrospector(new EpochMillisAnnotationIntrospector())
+                                                                   .build());
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.capgemini.wsb.fitnesstracker.web.internal;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+
+import java.util.Date;
+
+/**
+ * Reads {@link Date} properties as epoch milliseconds, ignoring the string patterns declared for JSON with {@link JsonFormat}.
+ */
+class EpochMillisAnnotationIntrospector extends JacksonAnnotationIntrospector {
+
+    private static final JsonFormat.Value EPOCH_MILLIS = JsonFormat.Value.forShape(JsonFormat.Shape.NUMBER);
+
+    @Override
+    public JsonFormat.Value findFormat(Annotated annotated) {
+        JsonFormat.Value format = super.findFormat(annotated);
+        if (format != null && Date.class.isAssignableFrom(annotated.getRawType()))
+            return EPOCH_MILLIS;
+        return format;
+    }
+
+}
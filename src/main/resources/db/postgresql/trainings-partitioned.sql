@@ -0,0 +1,24 @@
+-- Trainings table partitioned by month of the start time, for PostgreSQL 12 or later.
+-- The primary key has to include the partition key; Hibernate still identifies trainings by id alone.
+-- Monthly partitions named trainings_pYYYYMM are created and dropped by TrainingPartitionManager
+-- when fitnesstracker.training.partitions.enabled is set; the default partition holds trainings of other months.
+
+create sequence if not exists trainings_seq start with 1 increment by 50;
+
+create table trainings (
+    id            bigint           not null,
+    user_id       bigint           references users (id),
+    start_time    timestamp(6)     not null,
+    end_time      timestamp(6)     not null,
+    activity_type smallint         not null check (activity_type between 0 and 4),
+    distance      double precision not null,
+    average_speed double precision not null,
+    version       bigint,
+    primary key (id, start_time)
+) partition by range (start_time);
+
+create index idx_trainings_start_id on trainings (start_time, id);
+create index idx_trainings_user_start on trainings (user_id, start_time);
+create index idx_trainings_end_time on trainings (end_time);
+
+create table trainings_default partition of trainings default;
@@ -2,14 +2,27 @@ package com.capgemini.wsb.fitnesstracker;
 
 import com.capgemini.wsb.fitnesstracker.training.api.Training;
 import com.capgemini.wsb.fitnesstracker.user.api.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.Before;
 import org.junit.jupiter.api.AfterEach;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.Callable;
+
+import static java.util.UUID.randomUUID;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -21,6 +34,15 @@ public abstract class IntegrationTestBase {
     @Autowired
     private JpaRepository<Training, Long> trainingRepository;
 
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MockMvc mockMvc;
+
     @AfterEach
     void cleanUpDB() {
         trainingRepository.deleteAll();
@@ -44,6 +66,10 @@ public abstract class IntegrationTestBase {
         return userRepository.save(user);
     }
 
+    protected static User generateUser() {
+        return new User(randomUUID().toString(), randomUUID().toString(), LocalDate.now(), randomUUID().toString());
+    }
+
     protected List<User> getAllUsers() {
         return userRepository.findAll();
     }
@@ -58,5 +84,42 @@ public abstract class IntegrationTestBase {
         return trainingRepository.findAll();
     }
 
+    /**
+     * Creates a training of the user through the API, starting and ending at the given time, e.g. "2024-04-01 11:00:00".
+     */
+    protected void createTraining(User user, String startTime, String activityType, double distance, double averageSpeed) throws Exception {
+        createTraining(user, startTime, activityType, distance, averageSpeed, HttpHeaders.EMPTY);
+    }
+
+    protected void createTraining(User user, String startTime, String activityType, double distance, double averageSpeed,
+                                  HttpHeaders headers) throws Exception {
+        String requestBody = """
+            {
+                "user": {"id": %s},
+                "startTime": "%s",
+                "endTime": "%s",
+                "activityType": "%s",
+                "distance": %s,
+                "averageSpeed": %s
+            }
+            """.formatted(user.getId(), startTime, startTime, activityType, distance, averageSpeed);
+        mockMvc.perform(post("/v1/trainings").headers(headers).contentType(MediaType.APPLICATION_JSON).content(requestBody))
+                .andExpect(status().isCreated());
+    }
+
+    /**
+     * Counts the SQL statements prepared while running the action.
+     * Pending changes are flushed and the persistence context is cleared first, so nothing is served from it.
+     * Requires an active transaction and {@code hibernate.generate_statistics} enabled.
+     */
+    protected long countSqlStatements(Callable<?> action) throws Exception {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        action.call();
+        return statistics.getPrepareStatementCount();
+    }
+
 
 }
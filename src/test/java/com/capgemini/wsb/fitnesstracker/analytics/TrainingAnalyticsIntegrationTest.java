@@ -0,0 +1,87 @@
+package com.capgemini.wsb.fitnesstracker.analytics;
+
+import com.capgemini.wsb.fitnesstracker.IntegrationTest;
+import com.capgemini.wsb.fitnesstracker.IntegrationTestBase;
+import com.capgemini.wsb.fitnesstracker.user.api.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.log;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Not transactional, as the analytics store is updated only after the training writes commit.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc(addFilters = false)
+@TestPropertySource(properties = {
+        "fitnesstracker.analytics.enabled=true",
+        "fitnesstracker.training.archive.enabled=true",
+        "fitnesstracker.training.archive.directory=${java.io.tmpdir}/training-archive-${random.uuid}"
+})
+class TrainingAnalyticsIntegrationTest extends IntegrationTestBase {
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void shouldAggregateSavedTrainingsAndForgetDeletedUser_whenAnalyticsEnabled() throws Exception {
+        User user1 = existingUser(generateUser());
+
+        createTraining(user1, "2024-04-01 11:00:00", "RUNNING", 10, 8);
+        createTraining(user1, "2024-04-02 11:00:00", "RUNNING", 5, 12);
+        createTraining(user1, "2024-04-03 11:00:00", "TENNIS", 2, 4);
+
+        mockMvc.perform(get("/v1/analytics/trainings").param("userId", user1.getId().toString()).param("activityType", "RUNNING"))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(2))
+                .andExpect(jsonPath("$.totalDistance").value(15.0))
+                .andExpect(jsonPath("$.totalAverageSpeed").value(20.0));
+
+        mockMvc.perform(get("/v1/analytics/trainings").param("userId", user1.getId().toString()).param("from", "2024-04-02").param("to", "2024-04-03"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(2));
+
+        mockMvc.perform(delete("/v1/users/{userId}", user1.getId()))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/v1/analytics/trainings").param("userId", user1.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(0));
+    }
+
+    @Test
+    void shouldForgetArchivedTrainings_whenTrainingsAreArchived() throws Exception {
+        User user1 = existingUser(generateUser());
+
+        createTraining(user1, "2020-04-01 11:00:00", "RUNNING", 10, 8);
+        createTraining(user1, LocalDateTime.now().format(TIME_FORMAT), "RUNNING", 5, 12);
+
+        mockMvc.perform(get("/v1/analytics/trainings").param("userId", user1.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(2));
+
+        mockMvc.perform(post("/v1/trainings/archive"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.archived").value(1));
+
+        // matches the store reloaded from the trainings table after a restart
+        mockMvc.perform(get("/v1/analytics/trainings").param("userId", user1.getId().toString()))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(1))
+                .andExpect(jsonPath("$.totalDistance").value(5.0));
+    }
+
+}
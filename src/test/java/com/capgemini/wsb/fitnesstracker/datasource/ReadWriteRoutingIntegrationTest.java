@@ -0,0 +1,125 @@
+package com.capgemini.wsb.fitnesstracker.datasource;
+
+import com.capgemini.wsb.fitnesstracker.IntegrationTest;
+import com.capgemini.wsb.fitnesstracker.IntegrationTestBase;
+import com.capgemini.wsb.fitnesstracker.user.api.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.log;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Both pools connect to the same in-memory database, which stands in for a replica without replication lag.
+ * Not transactional, as the routing happens when the transactions of the services obtain their connections.
+ * Filters are applied, as the clients are bound to the routing by one.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=password",
+        "fitnesstracker.datasource.routing.enabled=true",
+        "fitnesstracker.datasource.routing.staleness-window=1s",
+        "fitnesstracker.datasource.routing.replica.jdbc-url=jdbc:h2:mem:routing;DB_CLOSE_DELAY=-1",
+        "fitnesstracker.datasource.routing.replica.username=sa",
+        "fitnesstracker.datasource.routing.replica.password=password"
+})
+class ReadWriteRoutingIntegrationTest extends IntegrationTestBase {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private static final String CLIENT_HEADER = "X-Client-Id";
+
+    @Test
+    void shouldReadFromPrimaryOnlyForWritingClientWithinStalenessWindow_whenGettingTrainingsOfUser() throws Exception {
+        User user1 = existingUser(generateUser());
+        double replicaConnections = routedConnections("replica");
+
+        // the user was written without a client, which pins no one's reads to the primary
+        mockMvc.perform(get("/v1/trainings/{userId}", user1.getId()).header(CLIENT_HEADER, "writer"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+        assertThat(routedConnections("replica")).isGreaterThan(replicaConnections);
+
+        createTraining(user1, "2024-04-01 11:00:00", "RUNNING", 10, 8, clientHeader("writer"));
+        replicaConnections = routedConnections("replica");
+
+        mockMvc.perform(get("/v1/trainings/{userId}", user1.getId()).header(CLIENT_HEADER, "writer"))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+        assertThat(routedConnections("replica")).isEqualTo(replicaConnections);
+
+        mockMvc.perform(get("/v1/trainings/{userId}", user1.getId()).header(CLIENT_HEADER, "reader"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+        assertThat(routedConnections("replica")).isGreaterThan(replicaConnections);
+
+        double readerReplicaConnections = routedConnections("replica");
+        await().atMost(Duration.ofSeconds(10)).pollInterval(Duration.ofMillis(250)).untilAsserted(() -> {
+            double before = routedConnections("replica");
+            mockMvc.perform(get("/v1/trainings/{userId}", user1.getId()).header(CLIENT_HEADER, "writer"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)));
+            assertThat(routedConnections("replica")).isGreaterThan(before);
+        });
+        assertThat(routedConnections("replica")).isGreaterThan(readerReplicaConnections);
+        assertThat(meterRegistry.find("hikaricp.connections").tag("pool", "replica").gauge()).isNotNull();
+        assertThat(meterRegistry.find("hikaricp.connections").tag("pool", "primary").gauge()).isNotNull();
+    }
+
+    @Test
+    void shouldStreamFromPrimary_whenClientWroteWithinStalenessWindow() throws Exception {
+        User user1 = existingUser(generateUser());
+        createTraining(user1, "2024-04-01 11:00:00", "RUNNING", 10, 8, clientHeader("writer"));
+        double replicaConnections = routedConnections("replica");
+
+        MvcResult result = mockMvc.perform(get("/v1/users/stream").header(CLIENT_HEADER, "writer"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+        assertThat(routedConnections("replica")).isEqualTo(replicaConnections);
+
+        result = mockMvc.perform(get("/v1/users/stream").header(CLIENT_HEADER, "reader"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+        assertThat(routedConnections("replica")).isGreaterThan(replicaConnections);
+    }
+
+    private static HttpHeaders clientHeader(String client) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(CLIENT_HEADER, client);
+        return headers;
+    }
+
+    private double routedConnections(String pool) {
+        return meterRegistry.get("datasource.routing.connections").tag("pool", pool).counter().count();
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.capgemini.wsb.fitnesstracker.training;
+
+import com.capgemini.wsb.fitnesstracker.IntegrationTest;
+import com.capgemini.wsb.fitnesstracker.IntegrationTestBase;
+import com.capgemini.wsb.fitnesstracker.user.api.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.log;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Not transactional, as the recent trainings cache is updated only after the training writes commit.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc(addFilters = false)
+class RecentTrainingsIntegrationTest extends IntegrationTestBase {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void shouldReturnNewestTrainingsIncludingJustCreatedOne_whenGettingRecentTrainings() throws Exception {
+        User user1 = existingUser(generateUser());
+        createTraining(user1, "2024-04-01 11:00:00", "RUNNING", 1, 10);
+        createTraining(user1, "2024-04-03 11:00:00", "RUNNING", 3, 10);
+        createTraining(user1, "2024-04-02 11:00:00", "RUNNING", 2, 10);
+
+        mockMvc.perform(get("/v1/trainings/{userId}/recent", user1.getId()).param("limit", "2"))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].distance").value(3.0))
+                .andExpect(jsonPath("$[1].distance").value(2.0));
+
+        double hitsBefore = meterRegistry.get("training.recent.cache.requests").tag("result", "hit").functionCounter().count();
+        createTraining(user1, "2024-04-04 11:00:00", "RUNNING", 4, 10);
+
+        mockMvc.perform(get("/v1/trainings/{userId}/recent", user1.getId()).param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].distance").value(4.0))
+                .andExpect(jsonPath("$[1].distance").value(3.0));
+        assertThat(meterRegistry.get("training.recent.cache.requests").tag("result", "hit").functionCounter().count())
+                .isEqualTo(hitsBefore + 1);
+    }
+
+}
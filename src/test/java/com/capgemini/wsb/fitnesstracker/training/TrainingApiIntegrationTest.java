@@ -5,6 +5,10 @@ import com.capgemini.wsb.fitnesstracker.IntegrationTestBase;
 import com.capgemini.wsb.fitnesstracker.training.api.Training;
 import com.capgemini.wsb.fitnesstracker.training.internal.ActivityType;
 import com.capgemini.wsb.fitnesstracker.user.api.User;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -17,9 +21,13 @@ import java.text.SimpleDateFormat;
 
 import static java.time.LocalDate.now;
 import static java.util.UUID.randomUUID;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.log;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -31,6 +39,9 @@ class TrainingApiIntegrationTest extends IntegrationTestBase {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private EntityManager entityManager;
+
     @Test
     void shouldReturnAllTrainings_whenGettingAllTrainings() throws Exception {
 
@@ -79,6 +90,41 @@ class TrainingApiIntegrationTest extends IntegrationTestBase {
                 .andExpect(jsonPath("$[1]").doesNotExist());;
     }
 
+    @Test
+    void shouldReturnTrainingsWithinRange_whenGettingTrainingsForDedicatedUserBetweenDays() throws Exception {
+        User user1 = existingUser(generateClient());
+        User user2 = existingUser(generateClient());
+        persistTraining(generateTrainingWithDetails(user1, "2024-05-16 19:00:00", "2024-05-16 20:00:00", ActivityType.RUNNING, 10, 10));
+        Training training2 = persistTraining(generateTrainingWithDetails(user1, "2024-05-17 19:00:00", "2024-05-17 20:00:00", ActivityType.RUNNING, 10, 10));
+        Training training3 = persistTraining(generateTrainingWithDetails(user1, "2024-05-18 19:00:00", "2024-05-18 20:00:00", ActivityType.RUNNING, 10, 10));
+        persistTraining(generateTrainingWithDetails(user1, "2024-05-19 19:00:00", "2024-05-19 20:00:00", ActivityType.RUNNING, 10, 10));
+        persistTraining(generateTrainingWithDetails(user2, "2024-05-17 19:00:00", "2024-05-17 20:00:00", ActivityType.RUNNING, 10, 10));
+
+        mockMvc.perform(get("/v1/trainings/{userId}", user1.getId())
+                        .param("from", "2024-05-17")
+                        .param("to", "2024-05-18")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id").value(training2.getId()))
+                .andExpect(jsonPath("$[1].id").value(training3.getId()));
+    }
+
+    @Test
+    void shouldUseIndexes_whenQueryingTrainingsByUserAndStartTimeOrByEndTime() {
+        String userRangePlan = (String) entityManager.createNativeQuery("""
+                        EXPLAIN SELECT * FROM trainings
+                        WHERE user_id = 1 AND start_time >= TIMESTAMP '2024-05-01 00:00:00' AND start_time < TIMESTAMP '2024-06-01 00:00:00'""")
+                .getSingleResult();
+        String endTimePlan = (String) entityManager.createNativeQuery("""
+                        EXPLAIN SELECT * FROM trainings WHERE end_time > TIMESTAMP '2024-05-01 00:00:00'""")
+                .getSingleResult();
+
+        assertThat(userRangePlan).containsIgnoringCase("idx_trainings_user_start");
+        assertThat(endTimePlan).containsIgnoringCase("idx_trainings_end_time");
+    }
+
     @Test
     void shouldReturnAllFinishedTrainingsAfterTime_whenGettingAllFinishedTrainingsAfterTime() throws Exception {
 
@@ -129,6 +175,79 @@ class TrainingApiIntegrationTest extends IntegrationTestBase {
                 .andExpect(jsonPath("$[2]").doesNotExist());
     }
 
+    @Test
+    void shouldLoadTrainingsWithUsersInSingleStatement_whenListingTrainings() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            User user = existingUser(generateClient());
+            persistTraining(generateTrainingWithActivityType(user, ActivityType.RUNNING));
+            persistTraining(generateTrainingWithActivityType(user, ActivityType.TENNIS));
+        }
+        Long userId = getAllUsers().get(0).getId();
+
+        assertThat(countSqlStatements(() -> mockMvc.perform(get("/v1/trainings"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(6))))).isEqualTo(1);
+        assertThat(countSqlStatements(() -> mockMvc.perform(get("/v1/trainings/activityType").param("activityType", "TENNIS"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3))))).isEqualTo(1);
+        assertThat(countSqlStatements(() -> mockMvc.perform(get("/v1/trainings/finished/{afterTime}", "2024-01-18"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(6))))).isEqualTo(1);
+        assertThat(countSqlStatements(() -> mockMvc.perform(get("/v1/trainings/{userId}", userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2))))).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReturnPagesWithCursor_whenGettingAllTrainingsPageByPage() throws Exception {
+        User user1 = existingUser(generateClient());
+        Training training1 = persistTraining(generateTrainingWithDetails(user1, "2024-05-17 19:00:00", "2024-05-17 20:00:00", ActivityType.RUNNING, 10, 10));
+        Training training2 = persistTraining(generateTrainingWithDetails(user1, "2024-05-18 19:00:00", "2024-05-18 20:00:00", ActivityType.RUNNING, 10, 10));
+        Training training3 = persistTraining(generateTrainingWithDetails(user1, "2024-05-19 19:00:00", "2024-05-19 20:00:00", ActivityType.RUNNING, 10, 10));
+
+        String cursor = mockMvc.perform(get("/v1/trainings").param("size", "2").contentType(MediaType.APPLICATION_JSON))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id").value(training1.getId()))
+                .andExpect(jsonPath("$[1].id").value(training2.getId()))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+
+        mockMvc.perform(get("/v1/trainings").param("size", "2").param("after", cursor).contentType(MediaType.APPLICATION_JSON))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(training3.getId()));
+    }
+
+    @Test
+    void shouldPersistValidTrainingsAndRejectInvalidOnes_whenCreatingTrainingsInBatch() throws Exception {
+        User user1 = existingUser(generateClient());
+
+        String requestBody = """
+            [
+                {"user": {"id": %1$s}, "startTime": "2024-04-01 11:00:00", "endTime": "2024-04-01 12:00:00", "activityType": "RUNNING", "distance": 10, "averageSpeed": 8},
+                {"user": {"id": %2$s}, "startTime": "2024-04-02 11:00:00", "endTime": "2024-04-02 12:00:00", "activityType": "RUNNING", "distance": 10, "averageSpeed": 8},
+                {"user": {"id": %1$s}, "startTime": "2024-04-03 11:00:00", "endTime": "2024-04-03 10:00:00", "activityType": "TENNIS", "distance": 0, "averageSpeed": 0},
+                {"user": {"id": %1$s}, "startTime": "2024-04-04 11:00:00", "endTime": "2024-04-04 12:00:00", "activityType": "CYCLING", "distance": 30, "averageSpeed": 20}
+            ]
+            """.formatted(user1.getId(), user1.getId() + 1000);
+        mockMvc.perform(post("/v1/trainings/batch").contentType(MediaType.APPLICATION_JSON).content(requestBody))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.rejected").value(2))
+                .andExpect(jsonPath("$.items[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.items[1].status").value("REJECTED"))
+                .andExpect(jsonPath("$.items[2].status").value("REJECTED"))
+                .andExpect(jsonPath("$.items[3].status").value("CREATED"));
+
+        assertThat(getAllTrainings()).extracting(Training::getActivityType)
+                .containsExactlyInAnyOrder(ActivityType.RUNNING, ActivityType.CYCLING);
+    }
+
     @Test
     void shouldPersistTraining_whenCreatingNewTraining() throws Exception {
 
@@ -177,6 +296,119 @@ class TrainingApiIntegrationTest extends IntegrationTestBase {
                 .andExpect(jsonPath("$.distance").value(newDistance));
     }
 
+    @Test
+    void shouldApplyUpdatesAndReportConflicts_whenUpdatingTrainingsInBatch() throws Exception {
+        User user1 = existingUser(generateClient());
+        Training training1 = persistTraining(generateTrainingWithActivityType(user1, ActivityType.RUNNING));
+        Training training2 = persistTraining(generateTrainingWithActivityType(user1, ActivityType.CYCLING));
+        Long version1 = training1.getVersion();
+
+        String requestBody = """
+            [
+                {"id": %1$s, "distance": 12.5, "activityType": "TENNIS", "version": %2$s},
+                {"id": %3$s, "distance": 30, "version": %4$s},
+                {"id": %5$s, "distance": 1},
+                {"id": %1$s, "averageSpeed": -1}
+            ]
+            """.formatted(training1.getId(), training1.getVersion(), training2.getId(), training2.getVersion() + 1, training2.getId() + 1000);
+        mockMvc.perform(patch("/v1/trainings/batch").contentType(MediaType.APPLICATION_JSON).content(requestBody))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.conflicts").value(1))
+                .andExpect(jsonPath("$.rejected").value(2))
+                .andExpect(jsonPath("$.items[0].status").value("UPDATED"))
+                .andExpect(jsonPath("$.items[1].status").value("CONFLICT"))
+                .andExpect(jsonPath("$.items[2].status").value("NOT_FOUND"))
+                .andExpect(jsonPath("$.items[3].status").value("REJECTED"));
+
+        entityManager.clear();
+        assertThat(entityManager.find(Training.class, training1.getId()))
+                .extracting(Training::getDistance, Training::getActivityType, Training::getVersion)
+                .containsExactly(12.5, ActivityType.TENNIS, version1 + 1);
+        assertThat(entityManager.find(Training.class, training2.getId()).getDistance()).isZero();
+    }
+
+    @Test
+    void shouldRejectUpdate_whenUpdatingTrainingWithStaleVersion() throws Exception {
+        User user1 = existingUser(generateClient());
+        Training training1 = persistTraining(generateTrainingWithActivityType(user1, ActivityType.RUNNING));
+        String requestBody = """
+        {
+            "distance": 5,
+            "version": %s
+        }
+        """.formatted(training1.getVersion() + 1);
+        mockMvc.perform(put("/v1/trainings/{trainingId}", training1.getId()).contentType(MediaType.APPLICATION_JSON).content(requestBody))
+                .andDo(log())
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void shouldReturnStoredAndDownsampledSamples_whenGettingTrainingSamples() throws Exception {
+        long start = 1_700_000_000_000L;
+        User user1 = existingUser(generateClient());
+        Training training1 = persistTraining(generateTraining(user1));
+
+        StringBuilder requestBody = new StringBuilder("[");
+        for (int i = 0; i < 30; i++) {
+            requestBody.append(i == 0 ? "" : ",")
+                       .append("""
+                           {"timestamp": %d, "heartRate": %d, "speed": 10.5, "elevation": %d, "latitude": 52.2297, "longitude": 21.0122}
+                           """.formatted(start + i * 1000L, 120 + i, 100 + i));
+        }
+        requestBody.append("]");
+        mockMvc.perform(put("/v1/trainings/{trainingId}/samples", training1.getId()).contentType(MediaType.APPLICATION_JSON).content(requestBody.toString()))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.samples").value(30));
+
+        mockMvc.perform(get("/v1/trainings/{trainingId}/samples", training1.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sampleCount").value(30))
+                .andExpect(jsonPath("$.samples", hasSize(30)))
+                .andExpect(jsonPath("$.samples[29].timestamp").value(start + 29_000))
+                .andExpect(jsonPath("$.samples[29].heartRate").value(149))
+                .andExpect(jsonPath("$.samples[29].elevation").value(129.0))
+                .andExpect(jsonPath("$.samples[0].latitude").value(52.2297))
+                .andExpect(jsonPath("$.samples[0].longitude").value(21.0122));
+
+        mockMvc.perform(get("/v1/trainings/{trainingId}/samples", training1.getId()).param("resolution", "10s"))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.resolutionMillis").value(10_000))
+                .andExpect(jsonPath("$.samples", hasSize(3)))
+                .andExpect(jsonPath("$.samples[1].timestamp").value(start + 10_000))
+                .andExpect(jsonPath("$.samples[1].heartRate").value(135))
+                .andExpect(jsonPath("$.samples[1].speed").value(10.5));
+    }
+
+    @Test
+    void shouldEncodeTrainingsWithEpochMillis_whenAcceptingCborOrSmile() throws Exception {
+        User user1 = existingUser(generateClient());
+        Training training1 = persistTraining(generateTraining(user1));
+
+        byte[] json = mockMvc.perform(get("/v1/trainings").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        byte[] cbor = mockMvc.perform(get("/v1/trainings").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        byte[] smile = mockMvc.perform(get("/v1/trainings").accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-jackson-smile"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode fromCbor = new CBORMapper().readTree(cbor);
+        JsonNode fromSmile = new SmileMapper().readTree(smile);
+        assertThat(fromCbor.get(0).get("startTime").asLong()).isEqualTo(training1.getStartTime().getTime());
+        assertThat(fromSmile.get(0).get("endTime").asLong()).isEqualTo(training1.getEndTime().getTime());
+        assertThat(fromCbor.get(0).get("user").get("id").asLong()).isEqualTo(user1.getId());
+        assertThat(cbor.length).isLessThan(json.length);
+        assertThat(smile.length).isLessThan(json.length);
+    }
+
     private static User generateClient() {
         return new User(randomUUID().toString(), randomUUID().toString(), now(), randomUUID().toString());
     }
@@ -0,0 +1,180 @@
+package com.capgemini.wsb.fitnesstracker.training;
+
+import com.capgemini.wsb.fitnesstracker.IntegrationTest;
+import com.capgemini.wsb.fitnesstracker.IntegrationTestBase;
+import com.capgemini.wsb.fitnesstracker.training.api.Training;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingProvider;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingService;
+import com.capgemini.wsb.fitnesstracker.training.internal.ActivityType;
+import com.capgemini.wsb.fitnesstracker.user.api.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.log;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@IntegrationTest
+@Transactional
+@AutoConfigureMockMvc(addFilters = false)
+@TestPropertySource(properties = {
+        "fitnesstracker.training.archive.enabled=true",
+        "fitnesstracker.training.archive.directory=${java.io.tmpdir}/training-archive-${random.uuid}"
+})
+class TrainingArchiveIntegrationTest extends IntegrationTestBase {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TrainingProvider trainingProvider;
+
+    @Autowired
+    private TrainingService trainingService;
+
+    @Test
+    void shouldMergeArchivedAndRecentTrainings_whenGettingTrainingsAfterArchiving() throws Exception {
+        User user1 = existingUser(generateUser());
+        Training oldTraining1 = persistTraining(generateTraining(user1, "2020-03-10 10:00:00", "2020-03-10 11:00:00", ActivityType.RUNNING));
+        Training oldTraining2 = persistTraining(generateTraining(user1, "2020-04-10 10:00:00", "2020-04-10 11:00:00", ActivityType.TENNIS));
+        Training recentTraining = persistTraining(new Training(user1, new Date(), new Date(), ActivityType.CYCLING, 20, 15));
+
+        mockMvc.perform(post("/v1/trainings/archive"))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.archived").value(2));
+
+        assertThat(getAllTrainings()).extracting(Training::getId).containsExactly(recentTraining.getId());
+
+        mockMvc.perform(get("/v1/trainings/{userId}", user1.getId()).contentType(MediaType.APPLICATION_JSON))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].id").value(oldTraining1.getId()))
+                .andExpect(jsonPath("$[0].user.email").value(user1.getEmail()))
+                .andExpect(jsonPath("$[0].distance").value(oldTraining1.getDistance()))
+                .andExpect(jsonPath("$[1].id").value(oldTraining2.getId()))
+                .andExpect(jsonPath("$[1].activityType").value("TENNIS"))
+                .andExpect(jsonPath("$[2].id").value(recentTraining.getId()));
+
+        mockMvc.perform(get("/v1/trainings/{userId}", user1.getId()).param("from", "2020-04-01").param("to", "2020-04-30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(oldTraining2.getId()));
+
+        mockMvc.perform(get("/v1/trainings").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id").value(oldTraining1.getId()))
+                .andExpect(jsonPath("$[1].id").value(oldTraining2.getId()));
+    }
+
+    @Test
+    void shouldFindArchivedTrainingById_whenGettingTrainingAfterArchiving() throws Exception {
+        User user1 = existingUser(generateUser());
+        Training oldTraining1 = persistTraining(generateTraining(user1, "2021-03-10 10:00:00", "2021-03-10 11:00:00", ActivityType.RUNNING));
+        Training oldTraining2 = persistTraining(generateTraining(user1, "2021-03-12 10:00:00", "2021-03-12 11:00:00", ActivityType.TENNIS));
+        Training oldTraining3 = persistTraining(generateTraining(user1, "2021-05-10 10:00:00", "2021-05-10 11:00:00", ActivityType.CYCLING));
+
+        mockMvc.perform(post("/v1/trainings/archive"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.archived").value(3));
+
+        assertThat(trainingProvider.getTraining(oldTraining2.getId())).map(training -> training.activityType).contains(ActivityType.TENNIS);
+        assertThat(trainingProvider.getTraining(oldTraining3.getId())).map(training -> training.id).contains(oldTraining3.getId());
+        assertThat(trainingProvider.getTraining(oldTraining1.getId())).map(training -> training.id).contains(oldTraining1.getId());
+        assertThat(trainingProvider.getTraining(oldTraining3.getId() + 1000)).isEmpty();
+    }
+
+    @Test
+    void shouldReadOnlyArchivedTrainingsInRange_whenGettingTrainingsByRangeAfterArchiving() throws Exception {
+        User user1 = existingUser(generateUser());
+        persistTraining(generateTraining(user1, "2022-01-20 10:00:00", "2022-01-20 11:00:00", ActivityType.WALKING));
+        Training februaryTraining = persistTraining(generateTraining(user1, "2022-02-20 10:00:00", "2022-02-20 11:00:00", ActivityType.WALKING));
+        Training marchTraining = persistTraining(generateTraining(user1, "2022-03-20 10:00:00", "2022-03-20 11:00:00", ActivityType.WALKING));
+
+        mockMvc.perform(post("/v1/trainings/archive"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.archived").value(3));
+
+        mockMvc.perform(get("/v1/trainings/activityType").param("activityType", "WALKING").param("from", "2022-02-01").param("to", "2022-02-28"))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(februaryTraining.getId()));
+
+        mockMvc.perform(get("/v1/trainings/finished/{afterTime}", "2022-02-15"))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id").value(februaryTraining.getId()))
+                .andExpect(jsonPath("$[1].id").value(marchTraining.getId()));
+    }
+
+    @Test
+    void shouldRejectUpdate_whenTrainingIsArchived() throws Exception {
+        User user1 = existingUser(generateUser());
+        Training oldTraining = persistTraining(generateTraining(user1, "2021-08-10 10:00:00", "2021-08-10 11:00:00", ActivityType.RUNNING));
+
+        mockMvc.perform(post("/v1/trainings/archive"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.archived").value(1));
+
+        mockMvc.perform(put("/v1/trainings/{trainingId}", oldTraining.getId()).contentType(MediaType.APPLICATION_JSON).content("""
+                        {"distance": 20}
+                        """))
+                .andDo(log())
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Training with ID=%s is archived and read-only".formatted(oldTraining.getId())));
+    }
+
+    /**
+     * Not transactional, as the archived trainings are hidden only after the deletion of the user commits.
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void shouldHideArchivedTrainingsOnlyOnceUserIsDeleted_whenDeletingTrainingsOfUser() throws Exception {
+        User user1 = existingUser(generateUser());
+        Training oldTraining = persistTraining(generateTraining(user1, "2021-06-10 10:00:00", "2021-06-10 11:00:00", ActivityType.RUNNING));
+        persistTraining(new Training(user1, new Date(), new Date(), ActivityType.CYCLING, 20, 15));
+
+        mockMvc.perform(post("/v1/trainings/archive"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.archived").value(1));
+
+        // a chunk of a background deletion job, which may still fail before the user is deleted
+        assertThat(trainingService.deleteTrainingsOfUser(user1.getId(), 10)).isEqualTo(1);
+
+        assertThat(trainingProvider.findTrainingsByUserId(user1.getId())).extracting(training -> training.id).containsExactly(oldTraining.getId());
+        assertThat(trainingProvider.getTraining(oldTraining.getId())).isPresent();
+
+        mockMvc.perform(delete("/v1/users/{userId}", user1.getId()))
+                .andExpect(status().isNoContent());
+
+        assertThat(trainingProvider.findTrainingsByUserId(user1.getId())).isEmpty();
+        assertThat(trainingProvider.getTraining(oldTraining.getId())).isEmpty();
+    }
+
+    private static Training generateTraining(User user, String startTime, String endTime, ActivityType activityType) throws ParseException {
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+
+        return new Training(user, sdf.parse(startTime), sdf.parse(endTime), activityType, 12.5, 9.5);
+    }
+
+}
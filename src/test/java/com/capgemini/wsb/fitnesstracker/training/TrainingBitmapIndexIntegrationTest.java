@@ -0,0 +1,192 @@
+package com.capgemini.wsb.fitnesstracker.training;
+
+import com.capgemini.wsb.fitnesstracker.IntegrationTest;
+import com.capgemini.wsb.fitnesstracker.IntegrationTestBase;
+import com.capgemini.wsb.fitnesstracker.training.api.Training;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingSavedEvent;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingService;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingsArchivedEvent;
+import com.capgemini.wsb.fitnesstracker.training.internal.ActivityType;
+import com.capgemini.wsb.fitnesstracker.user.api.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.log;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Not transactional, as the bitmap index is updated only after the training writes commit.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc(addFilters = false)
+class TrainingBitmapIndexIntegrationTest extends IntegrationTestBase {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TrainingService trainingService;
+
+    @Test
+    void shouldReturnOnlyTrainingsOfActivityTypeWithinDays_whenGettingTrainingsByActivityTypeBetweenDays() throws Exception {
+        User user1 = existingUser(generateUser());
+
+        String requestBody = """
+            [
+                {"user": {"id": %1$s}, "startTime": "2024-02-28 11:00:00", "endTime": "2024-02-28 12:00:00", "activityType": "CYCLING", "distance": 30, "averageSpeed": 20},
+                {"user": {"id": %1$s}, "startTime": "2024-03-01 11:00:00", "endTime": "2024-03-01 12:00:00", "activityType": "CYCLING", "distance": 31, "averageSpeed": 20},
+                {"user": {"id": %1$s}, "startTime": "2024-03-15 11:00:00", "endTime": "2024-03-15 12:00:00", "activityType": "RUNNING", "distance": 10, "averageSpeed": 10},
+                {"user": {"id": %1$s}, "startTime": "2024-03-31 11:00:00", "endTime": "2024-03-31 12:00:00", "activityType": "CYCLING", "distance": 32, "averageSpeed": 20},
+                {"user": {"id": %1$s}, "startTime": "2024-04-01 11:00:00", "endTime": "2024-04-01 12:00:00", "activityType": "CYCLING", "distance": 33, "averageSpeed": 20}
+            ]
+            """.formatted(user1.getId());
+        mockMvc.perform(post("/v1/trainings/batch").contentType(MediaType.APPLICATION_JSON).content(requestBody))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(5));
+
+        mockMvc.perform(get("/v1/trainings/activityType")
+                        .param("activityType", "CYCLING")
+                        .param("from", "2024-03-01")
+                        .param("to", "2024-03-31"))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].distance").value(31.0))
+                .andExpect(jsonPath("$[0].user.id").value(user1.getId()))
+                .andExpect(jsonPath("$[1].distance").value(32.0));
+    }
+
+    @Test
+    void shouldReturnTraining_whenTrainingIdExceedsIntegerRange() throws Exception {
+        User user1 = existingUser(generateUser());
+        long trainingId = Integer.MAX_VALUE + 1_000L;
+        jdbcTemplate.update("INSERT INTO trainings (id, user_id, start_time, end_time, activity_type, distance, average_speed, version) "
+                            + "VALUES (?, ?, TIMESTAMP '2024-05-10 11:00:00', TIMESTAMP '2024-05-10 12:00:00', ?, 40, 20, 0)",
+                            trainingId, user1.getId(), ActivityType.CYCLING.ordinal());
+        Training training = getAllTrainings().stream().filter(t -> t.getId() == trainingId).findFirst().orElseThrow();
+        eventPublisher.publishEvent(new TrainingSavedEvent(training));
+
+        mockMvc.perform(get("/v1/trainings/activityType")
+                        .param("activityType", "CYCLING")
+                        .param("from", "2024-05-10")
+                        .param("to", "2024-05-10"))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(trainingId));
+    }
+
+    @Test
+    void shouldKeepRemainingTrainingsAndSamples_whenDeletingTrainingsOfUserInChunks() throws Exception {
+        User user1 = existingUser(generateUser());
+        String requestBody = """
+            [
+                {"user": {"id": %1$s}, "startTime": "2024-06-01 11:00:00", "endTime": "2024-06-01 12:00:00", "activityType": "CYCLING", "distance": 30, "averageSpeed": 20},
+                {"user": {"id": %1$s}, "startTime": "2024-06-02 11:00:00", "endTime": "2024-06-02 12:00:00", "activityType": "CYCLING", "distance": 31, "averageSpeed": 20},
+                {"user": {"id": %1$s}, "startTime": "2024-06-03 11:00:00", "endTime": "2024-06-03 12:00:00", "activityType": "CYCLING", "distance": 32, "averageSpeed": 20}
+            ]
+            """.formatted(user1.getId());
+        mockMvc.perform(post("/v1/trainings/batch").contentType(MediaType.APPLICATION_JSON).content(requestBody))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(3));
+        List<Training> trainings = getAllTrainings().stream().sorted(Comparator.comparing(Training::getId)).toList();
+        for (Training training : trainings) {
+            mockMvc.perform(put("/v1/trainings/{trainingId}/samples", training.getId())
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content("""
+                                        [{"timestamp": 1717239600000, "heartRate": 120, "speed": 20, "elevation": 100, "latitude": 52.2297, "longitude": 21.0122}]
+                                        """))
+                    .andExpect(status().isOk());
+        }
+
+        trainingService.deleteTrainingsOfUser(user1.getId(), 1);
+
+        mockMvc.perform(get("/v1/trainings/activityType")
+                        .param("activityType", "CYCLING")
+                        .param("from", "2024-06-01")
+                        .param("to", "2024-06-03"))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id").value(trainings.get(1).getId()))
+                .andExpect(jsonPath("$[1].id").value(trainings.get(2).getId()));
+        mockMvc.perform(get("/v1/trainings/{trainingId}/samples", trainings.get(0).getId()))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/v1/trainings/{trainingId}/samples", trainings.get(1).getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sampleCount").value(1));
+    }
+
+    @Test
+    void shouldReturnTrainingsOrderedByStartTime_whenIdsAreNotInStartTimeOrder() throws Exception {
+        User user1 = existingUser(generateUser());
+        String requestBody = """
+            [
+                {"user": {"id": %1$s}, "startTime": "2024-07-03 11:00:00", "endTime": "2024-07-03 12:00:00", "activityType": "CYCLING", "distance": 33, "averageSpeed": 20},
+                {"user": {"id": %1$s}, "startTime": "2024-07-01 11:00:00", "endTime": "2024-07-01 12:00:00", "activityType": "CYCLING", "distance": 31, "averageSpeed": 20},
+                {"user": {"id": %1$s}, "startTime": "2024-07-02 11:00:00", "endTime": "2024-07-02 12:00:00", "activityType": "CYCLING", "distance": 32, "averageSpeed": 20}
+            ]
+            """.formatted(user1.getId());
+        mockMvc.perform(post("/v1/trainings/batch").contentType(MediaType.APPLICATION_JSON).content(requestBody))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(3));
+
+        mockMvc.perform(get("/v1/trainings/activityType")
+                        .param("activityType", "CYCLING")
+                        .param("from", "2024-07-01")
+                        .param("to", "2024-07-03"))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].distance").value(31.0))
+                .andExpect(jsonPath("$[1].distance").value(32.0))
+                .andExpect(jsonPath("$[2].distance").value(33.0));
+    }
+
+    @Test
+    void shouldForgetTrainings_whenTrainingsAreArchived() throws Exception {
+        User user1 = existingUser(generateUser());
+        String requestBody = """
+            [
+                {"user": {"id": %1$s}, "startTime": "2024-08-01 11:00:00", "endTime": "2024-08-01 12:00:00", "activityType": "CYCLING", "distance": 31, "averageSpeed": 20},
+                {"user": {"id": %1$s}, "startTime": "2024-08-02 11:00:00", "endTime": "2024-08-02 12:00:00", "activityType": "CYCLING", "distance": 32, "averageSpeed": 20}
+            ]
+            """.formatted(user1.getId());
+        mockMvc.perform(post("/v1/trainings/batch").contentType(MediaType.APPLICATION_JSON).content(requestBody))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2));
+        Training archived = getAllTrainings().stream().min(Comparator.comparing(Training::getId)).orElseThrow();
+
+        // announced without moving the row, so only the index can tell the training apart
+        eventPublisher.publishEvent(new TrainingsArchivedEvent(List.of(archived.getId())));
+
+        mockMvc.perform(get("/v1/trainings/activityType")
+                        .param("activityType", "CYCLING")
+                        .param("from", "2024-08-01")
+                        .param("to", "2024-08-02"))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].distance").value(32.0));
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.capgemini.wsb.fitnesstracker.training;
+
+import com.capgemini.wsb.fitnesstracker.IntegrationTest;
+import com.capgemini.wsb.fitnesstracker.IntegrationTestBase;
+import com.capgemini.wsb.fitnesstracker.training.api.Training;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingService;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingUpdateDto;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingVersionConflictException;
+import com.capgemini.wsb.fitnesstracker.training.internal.ActivityType;
+import com.capgemini.wsb.fitnesstracker.user.api.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Not transactional, as every thread has to commit its updates in its own transaction.
+ */
+@IntegrationTest
+class TrainingConcurrentUpdateIntegrationTest extends IntegrationTestBase {
+
+    private static final int THREADS = 8;
+
+    private static final int INCREMENTS_PER_THREAD = 25;
+
+    @Autowired
+    private TrainingService trainingService;
+
+    @Autowired
+    private JpaRepository<Training, Long> trainingRepository;
+
+    @Test
+    void shouldNotLoseUpdates_whenManyThreadsUpdateSameTraining() throws Exception {
+        User user1 = existingUser(generateUser());
+        Training training = persistTraining(new Training(user1, new Date(0), new Date(3_600_000), ActivityType.RUNNING, 0, 10));
+        Long trainingId = training.getId();
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            workers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < INCREMENTS_PER_THREAD; i++) {
+                    incrementDistance(trainingId);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        Training updated = trainingRepository.findById(trainingId).orElseThrow();
+        assertThat(updated.getDistance()).isEqualTo(THREADS * INCREMENTS_PER_THREAD);
+        assertThat(updated.getVersion()).isEqualTo(training.getVersion() + THREADS * INCREMENTS_PER_THREAD);
+    }
+
+    /**
+     * Read-modify-write of the distance, retried until it is not rejected as a conflicting update.
+     */
+    private void incrementDistance(Long trainingId) {
+        while (true) {
+            Training current = trainingRepository.findById(trainingId).orElseThrow();
+            TrainingUpdateDto update = new TrainingUpdateDto(trainingId, null, null, null, current.getDistance() + 1, null, current.getVersion());
+            try {
+                trainingService.updateTraining(trainingId, update);
+                return;
+            } catch (TrainingVersionConflictException | ConcurrencyFailureException e) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.capgemini.wsb.fitnesstracker.training;
+
+import com.capgemini.wsb.fitnesstracker.IntegrationTest;
+import com.capgemini.wsb.fitnesstracker.IntegrationTestBase;
+import com.capgemini.wsb.fitnesstracker.user.api.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.log;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Not transactional, as the modification counters are incremented only after the training writes commit.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc(addFilters = false)
+class TrainingETagIntegrationTest extends IntegrationTestBase {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void shouldAnswerNotModifiedUntilTrainingIsCreated_whenPollingTrainingsWithETag() throws Exception {
+        User user1 = existingUser(generateUser());
+        createTraining(user1, "2024-04-01 11:00:00", "SWIMMING", 1.5, 3);
+
+        String userETag = mockMvc.perform(get("/v1/trainings/{userId}", user1.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String activityTypeETag = mockMvc.perform(get("/v1/trainings/activityType").param("activityType", "SWIMMING"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(userETag).isNotBlank();
+
+        mockMvc.perform(get("/v1/trainings/{userId}", user1.getId()).header(HttpHeaders.IF_NONE_MATCH, userETag))
+                .andDo(log())
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/v1/trainings/activityType").param("activityType", "SWIMMING").header(HttpHeaders.IF_NONE_MATCH, activityTypeETag))
+                .andExpect(status().isNotModified());
+
+        createTraining(user1, "2024-04-02 11:00:00", "SWIMMING", 1.5, 3);
+
+        mockMvc.perform(get("/v1/trainings/{userId}", user1.getId()).header(HttpHeaders.IF_NONE_MATCH, userETag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+        mockMvc.perform(get("/v1/trainings/activityType").param("activityType", "SWIMMING").header(HttpHeaders.IF_NONE_MATCH, activityTypeETag))
+                .andExpect(status().isOk());
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.capgemini.wsb.fitnesstracker.training;
+
+import com.capgemini.wsb.fitnesstracker.IntegrationTest;
+import com.capgemini.wsb.fitnesstracker.IntegrationTestBase;
+import com.capgemini.wsb.fitnesstracker.training.api.Training;
+import com.capgemini.wsb.fitnesstracker.training.internal.ActivityType;
+import com.capgemini.wsb.fitnesstracker.user.api.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.log;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Not transactional, as the export is written on an async thread, which reads the trainings in its own transaction.
+ * Trainings start at noon (UTC), so the day bounds of the range hold in any default time zone.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc(addFilters = false)
+@TestPropertySource(properties = {
+        "fitnesstracker.training.archive.enabled=true",
+        "fitnesstracker.training.archive.directory=${java.io.tmpdir}/training-export-archive-${random.uuid}"
+})
+class TrainingExportIntegrationTest extends IntegrationTestBase {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void shouldExportArchivedAndStoredTrainingsWithinRange_whenExportingAsCsv() throws Exception {
+        User user1 = existingUser(generateUser());
+        persistTraining(generateTraining(user1, "2020-03-31T12:00:00Z", ActivityType.RUNNING));
+        Training archivedTraining = persistTraining(generateTraining(user1, "2020-04-01T12:00:00Z", ActivityType.TENNIS));
+
+        mockMvc.perform(post("/v1/trainings/archive"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.archived").value(2));
+
+        Training storedTraining = persistTraining(generateTraining(user1, "2020-04-30T12:00:00Z", ActivityType.CYCLING));
+        persistTraining(generateTraining(user1, "2020-05-01T12:00:00Z", ActivityType.RUNNING));
+
+        MvcResult result = mockMvc.perform(get("/v1/trainings/export").param("format", "csv").param("from", "2020-04-01").param("to", "2020-04-30"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"trainings.csv\""))
+                .andExpect(content().string("""
+                        id,userId,startTime,endTime,activityType,distance,averageSpeed
+                        %d,%d,2020-04-01 12:00:00,2020-04-01 13:00:00,TENNIS,12.5,9.5
+                        %d,%d,2020-04-30 12:00:00,2020-04-30 13:00:00,CYCLING,12.5,9.5
+                        """.formatted(archivedTraining.getId(), user1.getId(), storedTraining.getId(), user1.getId())));
+    }
+
+    @Test
+    void shouldExportCompressedTrainingsWithinRange_whenExportingAsGzippedNdjson() throws Exception {
+        User user1 = existingUser(generateUser());
+        persistTraining(generateTraining(user1, "2021-05-31T12:00:00Z", ActivityType.RUNNING));
+        Training training1 = persistTraining(generateTraining(user1, "2021-06-01T12:00:00Z", ActivityType.WALKING));
+        Training training2 = persistTraining(generateTraining(user1, "2021-06-15T12:00:00Z", ActivityType.SWIMMING));
+        persistTraining(generateTraining(user1, "2021-06-16T12:00:00Z", ActivityType.RUNNING));
+
+        MvcResult result = mockMvc.perform(get("/v1/trainings/export")
+                                                   .param("format", "ndjson")
+                                                   .param("from", "2021-06-01")
+                                                   .param("to", "2021-06-15")
+                                                   .param("gzip", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/gzip"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"trainings.ndjson.gz\""));
+
+        assertThat(gunzip(result.getResponse().getContentAsByteArray())).isEqualTo("""
+                {"id":%d,"userId":%d,"startTime":"2021-06-01 12:00:00","endTime":"2021-06-01 13:00:00","activityType":"WALKING","distance":12.5,"averageSpeed":9.5}
+                {"id":%d,"userId":%d,"startTime":"2021-06-15 12:00:00","endTime":"2021-06-15 13:00:00","activityType":"SWIMMING","distance":12.5,"averageSpeed":9.5}
+                """.formatted(training1.getId(), user1.getId(), training2.getId(), user1.getId()));
+    }
+
+    private static String gunzip(byte[] compressed) throws IOException {
+        try (GZIPInputStream stream = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Training generateTraining(User user, String startTime, ActivityType activityType) {
+        Instant start = Instant.parse(startTime);
+        return new Training(user, Date.from(start), Date.from(start.plus(Duration.ofHours(1))), activityType, 12.5, 9.5);
+    }
+
+}
@@ -0,0 +1,195 @@
+package com.capgemini.wsb.fitnesstracker.training;
+
+import com.capgemini.wsb.fitnesstracker.IntegrationTest;
+import com.capgemini.wsb.fitnesstracker.IntegrationTestBase;
+import com.capgemini.wsb.fitnesstracker.training.api.Training;
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingSavedEvent;
+import com.capgemini.wsb.fitnesstracker.user.api.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.log;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Not transactional, as the queued trainings are written by the writer thread in its own transactions.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc(addFilters = false)
+@TestPropertySource(properties = {
+        "fitnesstracker.training.ingest.enabled=true",
+        "fitnesstracker.training.batch-chunk-size=1"
+})
+class TrainingIngestIntegrationTest extends IntegrationTestBase {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void shouldAcknowledgeWithReservedIdsAndStoreTrainingsInGroups_whenIngestingTrainings() throws Exception {
+        User user1 = existingUser(generateUser());
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            String response = mockMvc.perform(post("/v1/trainings/ingest").contentType(MediaType.APPLICATION_JSON).content(trainingOf(user1, i)))
+                    .andDo(log())
+                    .andExpect(status().isAccepted())
+                    .andReturn().getResponse().getContentAsString();
+            ids.add(objectMapper.readTree(response).get("id").asLong());
+        }
+        assertThat(ids).doesNotHaveDuplicates();
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                assertThat(getAllTrainings()).extracting(Training::getId).containsExactlyInAnyOrderElementsOf(ids));
+        assertThat(getAllTrainings()).allSatisfy(training -> assertThat(training.getVersion()).isZero());
+
+        mockMvc.perform(get("/v1/trainings/{userId}", user1.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(5)));
+        assertThat(meterRegistry.get("training.ingest.commit").timer().count()).isPositive();
+        assertThat(meterRegistry.get("training.ingest.queue.depth").gauge().value()).isZero();
+    }
+
+    @Test
+    void shouldRejectInvalidTraining_whenIngestingTraining() throws Exception {
+        String requestBody = """
+            {
+                "startTime": "2024-04-01 10:00:00",
+                "endTime": "2024-04-01 11:00:00",
+                "activityType": "RUNNING",
+                "distance": 10,
+                "averageSpeed": 10
+            }
+            """;
+
+        mockMvc.perform(post("/v1/trainings/ingest").contentType(MediaType.APPLICATION_JSON).content(requestBody))
+                .andDo(log())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("User ID is required"));
+    }
+
+    @Test
+    void shouldKeepWritingLaterGroups_whenWritingGroupFails() throws Exception {
+        User user1 = existingUser(generateUser());
+        double dropped = ingestedTrainings("dropped");
+
+        mockMvc.perform(post("/v1/trainings/ingest").contentType(MediaType.APPLICATION_JSON).content(trainingOf(user1, FailingListener.FAILING_DISTANCE)))
+                .andExpect(status().isAccepted());
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> assertThat(ingestedTrainings("dropped")).isEqualTo(dropped + 1));
+
+        String response = mockMvc.perform(post("/v1/trainings/ingest").contentType(MediaType.APPLICATION_JSON).content(trainingOf(user1, 2)))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(response).get("id").asLong();
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                assertThat(getAllTrainings()).extracting(Training::getId).containsExactly(id));
+    }
+
+    @Test
+    void shouldCountGroupAsStored_whenListenerFailsAfterCommit() throws Exception {
+        User user1 = existingUser(generateUser());
+        double stored = ingestedTrainings("stored");
+        double dropped = ingestedTrainings("dropped");
+
+        String response = mockMvc.perform(post("/v1/trainings/ingest").contentType(MediaType.APPLICATION_JSON).content(trainingOf(user1, FailingListener.FAILING_AFTER_COMMIT_DISTANCE)))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(response).get("id").asLong();
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> assertThat(ingestedTrainings("stored")).isEqualTo(stored + 1));
+        assertThat(ingestedTrainings("dropped")).isEqualTo(dropped);
+        assertThat(getAllTrainings()).extracting(Training::getId).containsExactly(id);
+    }
+
+    @Test
+    void shouldReportCommittedChunksAsCreated_whenUploadingBatchWithFailingListeners() throws Exception {
+        User user1 = existingUser(generateUser());
+        String requestBody = "[" + trainingOf(user1, 1) + ","
+                             + trainingOf(user1, FailingListener.FAILING_DISTANCE) + ","
+                             + trainingOf(user1, FailingListener.FAILING_AFTER_COMMIT_DISTANCE) + "]";
+
+        mockMvc.perform(post("/v1/trainings/batch").contentType(MediaType.APPLICATION_JSON).content(requestBody))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.items[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.items[1].status").value("REJECTED"))
+                .andExpect(jsonPath("$.items[1].message").value("Batch failed: Training listener failed"))
+                .andExpect(jsonPath("$.items[2].status").value("CREATED"));
+
+        assertThat(getAllTrainings()).extracting(Training::getDistance)
+                .containsExactlyInAnyOrder(1.0, (double) FailingListener.FAILING_AFTER_COMMIT_DISTANCE);
+    }
+
+    private double ingestedTrainings(String result) {
+        return meterRegistry.get("training.ingest.trainings").tag("result", result).counter().count();
+    }
+
+    private static String trainingOf(User user, int day) {
+        return """
+            {
+                "user": {"id": %s},
+                "startTime": "2024-04-0%s 10:00:00",
+                "endTime": "2024-04-0%s 11:00:00",
+                "activityType": "RUNNING",
+                "distance": %s,
+                "averageSpeed": 10
+            }
+            """.formatted(user.getId(), day, day, day);
+    }
+
+    /**
+     * Fails the group of any training with {@value #FAILING_DISTANCE} km, as a broken listener or database would,
+     * and fails after the commit for any training with {@value #FAILING_AFTER_COMMIT_DISTANCE} km.
+     */
+    @TestConfiguration
+    static class FailingListener {
+
+        static final int FAILING_DISTANCE = 9;
+
+        static final int FAILING_AFTER_COMMIT_DISTANCE = 8;
+
+        @EventListener
+        void onTrainingSaved(TrainingSavedEvent event) {
+            if (event.training().getDistance() == FAILING_DISTANCE)
+                throw new IllegalStateException("Training listener failed");
+            if (event.training().getDistance() == FAILING_AFTER_COMMIT_DISTANCE) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        throw new IllegalStateException("Training listener failed after commit");
+                    }
+                });
+            }
+        }
+    }
+
+}
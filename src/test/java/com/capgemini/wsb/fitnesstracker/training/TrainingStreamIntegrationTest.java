@@ -0,0 +1,84 @@
+package com.capgemini.wsb.fitnesstracker.training;
+
+import com.capgemini.wsb.fitnesstracker.IntegrationTest;
+import com.capgemini.wsb.fitnesstracker.IntegrationTestBase;
+import com.capgemini.wsb.fitnesstracker.training.api.Training;
+import com.capgemini.wsb.fitnesstracker.training.internal.ActivityType;
+import com.capgemini.wsb.fitnesstracker.user.api.User;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.log;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Not transactional, as the stream is written on an async thread, which reads the trainings in its own transaction.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc(addFilters = false)
+class TrainingStreamIntegrationTest extends IntegrationTestBase {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void shouldStreamAllTrainingsOrderedByStartTimeAndId_whenStreamingTrainings() throws Exception {
+        User user1 = existingUser(generateUser());
+        User user2 = existingUser(generateUser());
+        Training training1 = persistTraining(generateTraining(user1, "2024-03-02T12:00:00Z"));
+        Training training2 = persistTraining(generateTraining(user2, "2024-03-01T12:00:00Z"));
+        Training training3 = persistTraining(generateTraining(user1, "2024-03-01T12:00:00Z"));
+        Training training4 = persistTraining(generateTraining(user2, "2024-02-28T12:00:00Z"));
+
+        MvcResult result = mockMvc.perform(get("/v1/trainings/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+
+        JsonNode trainings = objectMapper.readTree(result.getResponse().getContentAsString());
+        assertThat(trainings.isArray()).isTrue();
+        assertThat(trainings).extracting(training -> training.get("id").asLong())
+                .containsExactly(training4.getId(), training2.getId(), training3.getId(), training1.getId());
+        assertThat(trainings.get(0).get("user").get("id").asLong()).isEqualTo(user2.getId());
+    }
+
+    @Test
+    void shouldStreamEmptyArray_whenNoTrainings() throws Exception {
+        MvcResult result = mockMvc.perform(get("/v1/trainings/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(content().json("[]", true));
+    }
+
+    private static Training generateTraining(User user, String startTime) {
+        Instant start = Instant.parse(startTime);
+        return new Training(user, Date.from(start), Date.from(start.plus(Duration.ofHours(1))), ActivityType.RUNNING, 10, 8);
+    }
+
+}
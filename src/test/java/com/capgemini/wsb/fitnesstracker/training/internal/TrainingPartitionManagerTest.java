@@ -0,0 +1,63 @@
+package com.capgemini.wsb.fitnesstracker.training.internal;
+
+import com.capgemini.wsb.fitnesstracker.training.api.TrainingsDroppedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Covers the computations of the partition maintenance, which itself only runs on a partitioned PostgreSQL table.
+ */
+class TrainingPartitionManagerTest {
+
+    @Test
+    void shouldCreateCurrentAndFollowingMonths_acrossYearEnd() {
+        assertThat(TrainingPartitionManager.monthsToCreate(YearMonth.of(2024, 11), 2))
+                .containsExactly(YearMonth.of(2024, 11), YearMonth.of(2024, 12), YearMonth.of(2025, 1));
+        assertThat(TrainingPartitionManager.monthsToCreate(YearMonth.of(2024, 11), 0))
+                .containsExactly(YearMonth.of(2024, 11));
+    }
+
+    @Test
+    void shouldNamePartitionsByYearAndZeroPaddedMonth() {
+        assertThat(TrainingPartitionManager.partitionOf(YearMonth.of(2024, 3))).isEqualTo("trainings_p202403");
+        assertThat(TrainingPartitionManager.partitionOf(YearMonth.of(2024, 12))).isEqualTo("trainings_p202412");
+    }
+
+    @Test
+    void shouldCutOffAtMonthOfDayRetentionAgo() {
+        assertThat(TrainingPartitionManager.cutoffOf(LocalDate.of(2024, 3, 31), Period.ofMonths(1))).isEqualTo(YearMonth.of(2024, 2));
+        assertThat(TrainingPartitionManager.cutoffOf(LocalDate.of(2024, 1, 15), Period.ofYears(1))).isEqualTo(YearMonth.of(2023, 1));
+        assertThat(TrainingPartitionManager.cutoffOf(LocalDate.of(2024, 1, 15), Period.ofDays(15))).isEqualTo(YearMonth.of(2023, 12));
+    }
+
+    @Test
+    void shouldExpireOnlyMonthlyPartitionsBeforeCutoff_inMonthOrder() {
+        List<String> partitions = List.of("trainings_p202402", "trainings_default", "trainings_p202312",
+                                          "trainings_p202401", "trainings_p2023", "trainings_p202311");
+
+        assertThat(TrainingPartitionManager.expiredPartitions(partitions, YearMonth.of(2024, 1)))
+                .containsExactly("trainings_p202311", "trainings_p202312");
+        assertThat(TrainingPartitionManager.expiredPartitions(partitions, YearMonth.of(2023, 11))).isEmpty();
+    }
+
+    @Test
+    void shouldPublishDroppedEvent_onlyWhenTrainingsWereRemoved() {
+        YearMonth cutoff = YearMonth.of(2024, 1);
+        Date startOfCutoff = Date.from(cutoff.atDay(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+
+        assertThat(TrainingPartitionManager.droppedEvent(List.of(), 0, cutoff)).isEmpty();
+        assertThat(TrainingPartitionManager.droppedEvent(List.of("trainings_p202312"), 0, cutoff))
+                .contains(new TrainingsDroppedEvent(startOfCutoff));
+        assertThat(TrainingPartitionManager.droppedEvent(List.of(), 3, cutoff))
+                .contains(new TrainingsDroppedEvent(startOfCutoff));
+    }
+
+}
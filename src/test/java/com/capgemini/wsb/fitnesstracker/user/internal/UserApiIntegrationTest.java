@@ -2,7 +2,11 @@ package com.capgemini.wsb.fitnesstracker.user.internal;
 
 import com.capgemini.wsb.fitnesstracker.IntegrationTest;
 import com.capgemini.wsb.fitnesstracker.IntegrationTestBase;
+import com.capgemini.wsb.fitnesstracker.training.api.Training;
+import com.capgemini.wsb.fitnesstracker.training.internal.ActivityType;
+import com.capgemini.wsb.fitnesstracker.user.api.DuplicateEmailException;
 import com.capgemini.wsb.fitnesstracker.user.api.User;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -11,6 +15,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Date;
 import java.util.List;
 
 import static java.time.format.DateTimeFormatter.ISO_DATE;
@@ -19,6 +24,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.log;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -30,6 +36,12 @@ class UserApiIntegrationTest extends IntegrationTestBase {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+
     @Test
     void shouldReturnAllUsers_whenGettingAllUsers() throws Exception {
         User user1 = existingUser(generateUser());
@@ -50,6 +62,28 @@ class UserApiIntegrationTest extends IntegrationTestBase {
                 .andExpect(jsonPath("$[2]").doesNotExist());
     }
 
+    @Test
+    void shouldReturnPagesWithCursor_whenGettingAllUsersPageByPage() throws Exception {
+        User user1 = existingUser(generateUser());
+        User user2 = existingUser(generateUser());
+        User user3 = existingUser(generateUser());
+
+        mockMvc.perform(get("/v1/users").param("size", "2").contentType(MediaType.APPLICATION_JSON))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", user2.getId().toString()))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id").value(user1.getId().intValue()))
+                .andExpect(jsonPath("$[1].id").value(user2.getId().intValue()));
+
+        mockMvc.perform(get("/v1/users").param("size", "2").param("after", user2.getId().toString()).contentType(MediaType.APPLICATION_JSON))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(user3.getId().intValue()));
+    }
+
     @Test
     void shouldReturnAllSimpleUsers_whenGettingAllUsers() throws Exception {
         User user1 = existingUser(generateUser());
@@ -95,6 +129,18 @@ class UserApiIntegrationTest extends IntegrationTestBase {
                 .andExpect(jsonPath("$[0].email").value(user1.getEmail()));
     }
 
+    @Test
+    void shouldReturnUserIgnoringCase_whenGettingUserByEmailInDifferentCase() throws Exception {
+        User user1 = existingUser(generateUser());
+
+        mockMvc.perform(get("/v1/users/email").param("email", " " + user1.getEmail().toUpperCase() + " ").contentType(MediaType.APPLICATION_JSON))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(user1.getId().intValue()))
+                .andExpect(jsonPath("$[0].email").value(user1.getEmail()));
+    }
+
     @Test
     void shouldReturnAllUsersOlderThan_whenGettingAllUsersOlderThan() throws Exception {
         User user1 = existingUser(generateUserWithDate(LocalDate.of(2000, 8, 11)));
@@ -112,6 +158,63 @@ class UserApiIntegrationTest extends IntegrationTestBase {
                 .andExpect(jsonPath("$[1]").doesNotExist());
     }
 
+    @Test
+    void shouldPageUsersOlderThanByBirthdate_whenGettingUsersOlderThanWithCursor() throws Exception {
+        User user1 = existingUser(generateUserWithDate(LocalDate.of(2000, 8, 11)));
+        User user2 = existingUser(generateUserWithDate(LocalDate.of(1990, 1, 1)));
+        User user3 = existingUser(generateUserWithDate(LocalDate.of(1990, 1, 1)));
+        existingUser(generateUserWithDate(LocalDate.of(2024, 8, 11)));
+
+        mockMvc.perform(get("/v1/users/older-than/{time}", LocalDate.of(2024, 8, 10)).param("size", "2").contentType(MediaType.APPLICATION_JSON))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "1990-01-01_" + user3.getId()))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id").value(user2.getId().intValue()))
+                .andExpect(jsonPath("$[1].id").value(user3.getId().intValue()));
+
+        mockMvc.perform(get("/v1/users/older-than/{time}", LocalDate.of(2024, 8, 10))
+                                .param("size", "2")
+                                .param("after", "1990-01-01_" + user3.getId())
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(user1.getId().intValue()));
+    }
+
+    @Test
+    void shouldRejectCursor_whenGettingUsersOlderThanWithMalformedCursor() throws Exception {
+        mockMvc.perform(get("/v1/users/older-than/{time}", LocalDate.of(2024, 8, 10)).param("after", "42").contentType(MediaType.APPLICATION_JSON))
+                .andDo(log())
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldUseBirthdateIdIndex_whenPagingUsersOlderThan() {
+        String plan = (String) entityManager.createNativeQuery("""
+                        EXPLAIN SELECT * FROM users
+                        WHERE birthdate < DATE '2024-08-10'
+                          AND (birthdate > DATE '1990-01-01' OR (birthdate = DATE '1990-01-01' AND id > 5))
+                        ORDER BY birthdate, id FETCH FIRST 20 ROWS ONLY""")
+                .getSingleResult();
+
+        assertThat(plan).containsIgnoringCase("idx_users_birthdate_id").containsIgnoringCase("index sorted");
+    }
+
+    @Test
+    void shouldCountUsersOlderThan_whenCountingUsersOlderThan() throws Exception {
+        existingUser(generateUserWithDate(LocalDate.of(1990, 1, 1)));
+        existingUser(generateUserWithDate(LocalDate.of(2000, 8, 11)));
+        existingUser(generateUserWithDate(LocalDate.of(2024, 8, 11)));
+
+        mockMvc.perform(get("/v1/users/older-than/{time}/count", LocalDate.of(2024, 8, 10)).contentType(MediaType.APPLICATION_JSON))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value(2));
+    }
+
     @Test
     void shouldRemoveUserFromRepository_whenDeletingClient() throws Exception {
         User user1 = existingUser(generateUser());
@@ -127,6 +230,40 @@ class UserApiIntegrationTest extends IntegrationTestBase {
 
     }
 
+    @Test
+    void shouldRemoveUserWithTrainings_whenDeletingUserHavingTrainings() throws Exception {
+        User user1 = existingUser(generateUser());
+        User user2 = existingUser(generateUser());
+        persistTraining(new Training(user1, new Date(), new Date(), ActivityType.RUNNING, 10.5, 8.2));
+        persistTraining(new Training(user1, new Date(), new Date(), ActivityType.CYCLING, 20, 15));
+        Training otherTraining = persistTraining(new Training(user2, new Date(), new Date(), ActivityType.RUNNING, 5, 10));
+        persistStatistics(user1);
+        persistStatistics(user2);
+
+        mockMvc.perform(delete("/v1/users/{userId}", user1.getId())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(log())
+                .andExpect(status().isNoContent());
+
+        assertThat(getAllUsers()).extracting(User::getId).containsExactly(user2.getId());
+        assertThat(getAllTrainings()).extracting(Training::getId).containsExactly(otherTraining.getId());
+        assertThat(entityManager.createNativeQuery("SELECT user_id FROM statistics").getResultList())
+                .containsExactly(user2.getId());
+    }
+
+    @Test
+    void shouldKeepUserInSearchIndex_whenUserDeletionIsNotCommitted() throws Exception {
+        User user1 = existingUser(generateUser());
+        userSearchIndex.add(user1);
+
+        // the deletion joins the test transaction, which is rolled back
+        mockMvc.perform(delete("/v1/users/{userId}", user1.getId()))
+                .andExpect(status().isNoContent());
+
+        assertThat(userSearchIndex.search(user1.getFirstName(), 10)).containsExactly(user1.getId());
+        userSearchIndex.remove(userSearchIndex.keysOf(user1));
+    }
+
     @Test
     void shouldPersistUser_whenCreatingUser() throws Exception {
 
@@ -166,6 +303,111 @@ class UserApiIntegrationTest extends IntegrationTestBase {
 
     }
 
+    @Test
+    void shouldImportNewUsersAndReportDuplicates_whenImportingUsersInBulk() throws Exception {
+        User user1 = existingUser(generateUser());
+
+        String importRequest = """
+                {"firstName": "Mike", "lastName": "Scott", "birthdate": "1999-09-29", "email": "mike.scott@domain.com"}
+                {"firstName": "Dwight", "lastName": "Schrute", "birthdate": "1980-01-20", "email": "%s"}
+                {"firstName": "Michael", "lastName": "Scott", "birthdate": "1999-09-29", "email": "Mike.Scott@domain.com"}
+                {"firstName": "Jim", "birthdate": "1985-10-01", "email": "jim.halpert@domain.com"}
+                """.formatted(user1.getEmail().toUpperCase());
+
+        mockMvc.perform(post("/v1/users/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(importRequest))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.duplicates").value(2))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.rows", hasSize(4)))
+                .andExpect(jsonPath("$.rows[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.rows[1].status").value("DUPLICATE"))
+                .andExpect(jsonPath("$.rows[2].status").value("DUPLICATE"))
+                .andExpect(jsonPath("$.rows[3].status").value("REJECTED"));
+
+        assertThat(getAllUsers()).extracting(User::getEmail)
+                .containsExactlyInAnyOrder(user1.getEmail(), "mike.scott@domain.com");
+    }
+
+    @Test
+    void shouldFindUserByNamePrefix_whenSearchingUsers() throws Exception {
+        String firstName = randomUUID().toString();
+
+        String creationRequest = """
+                {
+                "firstName": "%s",
+                "lastName": "Scott",
+                "birthdate": "1999-09-29",
+                "email": "%s@domain.com"
+                }
+                """.formatted(firstName, firstName);
+
+        mockMvc.perform(post("/v1/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(creationRequest))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/v1/users/search").param("q", firstName.substring(0, 8).toUpperCase()).contentType(MediaType.APPLICATION_JSON))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].firstName").value(firstName))
+                .andExpect(jsonPath("$[0].email").value(firstName + "@domain.com"));
+    }
+
+    @Test
+    void shouldRejectUser_whenCreatingUserWithTakenEmail() throws Exception {
+        String email = randomUUID() + "@domain.com";
+        String creationRequest = """
+                {
+                "firstName": "Mike",
+                "lastName": "Scott",
+                "birthdate": "1999-09-29",
+                "email": "%s"
+                }
+                """;
+
+        mockMvc.perform(post("/v1/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(creationRequest.formatted(email)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(post("/v1/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(creationRequest.formatted(email.toUpperCase())))
+                .andDo(log())
+                .andExpect(status().isBadRequest());
+
+        assertThat(getAllUsers()).hasSize(1);
+    }
+
+    @Test
+    void shouldRejectUser_whenCreatedUserViolatesUniqueEmailConstraint() throws Exception {
+        // stored past the service, so the pre-check does not know the email and the unique constraint rejects it
+        User user1 = existingUser(generateUser());
+        entityManager.flush();
+        String creationRequest = """
+                {
+                "firstName": "Mike",
+                "lastName": "Scott",
+                "birthdate": "1999-09-29",
+                "email": "%s"
+                }
+                """.formatted(user1.getEmail().toUpperCase());
+
+        mockMvc.perform(post("/v1/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(creationRequest))
+                .andDo(log())
+                .andExpect(status().isBadRequest())
+                .andExpect(result -> assertThat(result.getResolvedException()).isInstanceOf(DuplicateEmailException.class));
+        // the failed insert is left in the persistence context
+        entityManager.clear();
+    }
+
     @Test
     void shouldUpdateUser_whenUpdatingUser() throws Exception {
         User user1 = existingUser(generateUser());
@@ -203,13 +445,14 @@ class UserApiIntegrationTest extends IntegrationTestBase {
         assertThat(user.getEmail()).isEqualTo(USER_EMAIL);
     }
 
-    public static User generateUser() {
-        return new User(randomUUID().toString(), randomUUID().toString(), LocalDate.now(), randomUUID().toString());
+    private void persistStatistics(User user) {
+        entityManager.createNativeQuery("INSERT INTO statistics (user_id, total_trainings, total_distance, total_average_speed) VALUES (?, 1, 0, 0)")
+                     .setParameter(1, user.getId())
+                     .executeUpdate();
     }
 
     private static User generateUserWithDate(LocalDate date) {
         return new User(randomUUID().toString(), randomUUID().toString(), date, randomUUID().toString());
     }
 
-
 }
@@ -0,0 +1,51 @@
+package com.capgemini.wsb.fitnesstracker.user.internal;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bulk users for the on-demand benchmarks, inserted with plain JDBC batches.
+ * Their IDs start at {@link #FIRST_ID}, far above the IDs handed out by the user sequence.
+ */
+final class UserBenchmarkData {
+
+    static final long FIRST_ID = 1_000_000_000L;
+
+    private static final String INSERT = """
+            insert into users (id, first_name, last_name, birthdate, email, email_normalized)
+            values (?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final int BATCH_SIZE = 10_000;
+
+    private UserBenchmarkData() {
+    }
+
+    /**
+     * Inserts the users numbered from {@code from} (inclusive) to {@code to} (exclusive).
+     */
+    static void insertUsers(JdbcTemplate jdbcTemplate, int from, int to) {
+        Date birthdate = Date.valueOf(LocalDate.of(1990, 1, 1));
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        for (int number = from; number < to; number++) {
+            rows.add(new Object[]{FIRST_ID + number, "First" + number, "Last" + number, birthdate, emailOf(number), emailOf(number).toLowerCase()});
+            if (rows.size() == BATCH_SIZE || number == to - 1) {
+                jdbcTemplate.batchUpdate(INSERT, rows);
+                rows.clear();
+            }
+        }
+    }
+
+    static String emailOf(int number) {
+        return "User" + number + "@Example.com";
+    }
+
+    static void deleteUsers(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("delete from users where id >= ?", FIRST_ID);
+    }
+
+}
@@ -0,0 +1,146 @@
+package com.capgemini.wsb.fitnesstracker.user.internal;
+
+import com.capgemini.wsb.fitnesstracker.IntegrationTest;
+import com.capgemini.wsb.fitnesstracker.IntegrationTestBase;
+import com.capgemini.wsb.fitnesstracker.user.api.User;
+import com.capgemini.wsb.fitnesstracker.user.api.UserProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.log;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@IntegrationTest
+@Transactional
+@AutoConfigureMockMvc(addFilters = false)
+@TestPropertySource(properties = "fitnesstracker.user.cache.ttl=500ms")
+class UserCacheIntegrationTest extends IntegrationTestBase {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserProvider userProvider;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void shouldServeSecondLookupFromCache_whenGettingUserTwice() throws Exception {
+        User user1 = existingUser(generateUser());
+        double hits = cacheRequests("hit");
+        double misses = cacheRequests("miss");
+
+        mockMvc.perform(get("/v1/users/{userId}", user1.getId()).contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/v1/users/{userId}", user1.getId()).contentType(MediaType.APPLICATION_JSON))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value(user1.getEmail()));
+        assertThat(userProvider.getUserByEmail(user1.getEmail().toUpperCase())).map(User::getId).contains(user1.getId());
+
+        assertThat(cacheRequests("miss")).isEqualTo(misses + 1);
+        assertThat(cacheRequests("hit")).isEqualTo(hits + 2);
+    }
+
+    @Test
+    void shouldReturnDetachedCopies_whenGettingCachedUser() {
+        User user1 = existingUser(generateUser());
+        userProvider.getUser(user1.getId());
+
+        User first = userProvider.getUser(user1.getId()).orElseThrow();
+        first.setFirstName("Changed");
+        User second = userProvider.getUser(user1.getId()).orElseThrow();
+
+        assertThat(second).isNotSameAs(first).isNotSameAs(user1);
+        assertThat(second.getFirstName()).isEqualTo(user1.getFirstName());
+        assertThat(second.getEmail()).isEqualTo(user1.getEmail());
+    }
+
+    @Test
+    void shouldReloadUser_whenCachedUserExpired() {
+        User user1 = existingUser(generateUser());
+        AtomicInteger loads = new AtomicInteger();
+        userCache.get(user1.getId(), userId -> {
+            loads.incrementAndGet();
+            return Optional.of(user1);
+        });
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            userCache.get(user1.getId(), userId -> {
+                loads.incrementAndGet();
+                return Optional.of(user1);
+            });
+            assertThat(loads).hasValueGreaterThan(1);
+        });
+    }
+
+    @Test
+    void shouldReturnUpdatedUser_whenGettingUserAfterUpdate() throws Exception {
+        User user1 = existingUser(generateUser());
+        userProvider.getUser(user1.getId());
+
+        mockMvc.perform(put("/v1/users/{userId}", user1.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"firstName": "Updated"}
+                                """))
+                .andExpect(status().isOk());
+
+        assertThat(userProvider.getUser(user1.getId())).map(User::getFirstName).contains("Updated");
+    }
+
+    @Test
+    void shouldNotReturnUser_whenGettingUserAfterDeletion() throws Exception {
+        User user1 = existingUser(generateUser());
+        userProvider.getUser(user1.getId());
+
+        mockMvc.perform(delete("/v1/users/{userId}", user1.getId()))
+                .andExpect(status().isNoContent());
+
+        assertThat(userProvider.getUser(user1.getId())).isEmpty();
+    }
+
+    @Test
+    void shouldNotCacheUser_whenInvalidatedWhileLoading() {
+        User user1 = existingUser(generateUser());
+        AtomicInteger loads = new AtomicInteger();
+
+        userCache.get(user1.getId(), userId -> {
+            loads.incrementAndGet();
+            // a concurrent update commits while the state from before it is being loaded
+            userCache.invalidate(userId);
+            return Optional.of(user1);
+        });
+        userCache.get(user1.getId(), userId -> {
+            loads.incrementAndGet();
+            return Optional.of(user1);
+        });
+
+        assertThat(loads).hasValue(2);
+    }
+
+    private double cacheRequests(String result) {
+        return meterRegistry.get("user.cache.requests").tag("result", result).functionCounter().count();
+    }
+
+}
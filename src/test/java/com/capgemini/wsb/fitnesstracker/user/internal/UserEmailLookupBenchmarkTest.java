@@ -0,0 +1,82 @@
+package com.capgemini.wsb.fitnesstracker.user.internal;
+
+import com.capgemini.wsb.fitnesstracker.IntegrationTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures the latency of looking up users by email while the users table grows from 10k to 1M rows,
+ * next to a scan over the non-normalized email column as a reference for the former full-table lookup.
+ * Inserting the users takes a while, so it runs only on demand: {@code mvn test -Dtest=UserEmailLookupBenchmarkTest -Dbenchmark=true}.
+ */
+@IntegrationTest
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class UserEmailLookupBenchmarkTest {
+
+    private static final int[] SIZES = {10_000, 100_000, 1_000_000};
+
+    private static final int WARMUP_LOOKUPS = 2_000;
+
+    private static final int MEASURED_LOOKUPS = 5_000;
+
+    private static final int SCANS = 20;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void deleteUsers() {
+        UserBenchmarkData.deleteUsers(jdbcTemplate);
+    }
+
+    @Test
+    void shouldLookUpUsersByEmailInFlatTime_whenUsersGrowFromTenThousandToMillion() {
+        Random random = new Random(42);
+        long[] p50s = new long[SIZES.length];
+        int inserted = 0;
+        for (int i = 0; i < SIZES.length; i++) {
+            int size = SIZES[i];
+            UserBenchmarkData.insertUsers(jdbcTemplate, inserted, size);
+            inserted = size;
+
+            for (int lookup = 0; lookup < WARMUP_LOOKUPS; lookup++)
+                userRepository.findByEmail(UserBenchmarkData.emailOf(random.nextInt(size)));
+
+            long[] nanos = new long[MEASURED_LOOKUPS];
+            for (int lookup = 0; lookup < MEASURED_LOOKUPS; lookup++) {
+                String email = UserBenchmarkData.emailOf(random.nextInt(size));
+                long start = System.nanoTime();
+                assertThat(userRepository.findByEmail(email)).isPresent();
+                nanos[lookup] = System.nanoTime() - start;
+            }
+            Arrays.sort(nanos);
+            p50s[i] = nanos[MEASURED_LOOKUPS / 2];
+
+            long scanStart = System.nanoTime();
+            for (int scan = 0; scan < SCANS; scan++)
+                jdbcTemplate.queryForObject("select count(*) from users where lower(email) = ?", Long.class,
+                                            UserBenchmarkData.emailOf(random.nextInt(size)).toLowerCase());
+            long scanNanos = (System.nanoTime() - scanStart) / SCANS;
+
+            System.out.printf("Email lookup over %d users: p50 %.3f ms, p99 %.3f ms; full scan %.3f ms%n",
+                              size, p50s[i] / 1e6, nanos[MEASURED_LOOKUPS * 99 / 100] / 1e6, scanNanos / 1e6);
+        }
+
+        // flat: a hundred times more users may not make the typical lookup more than a few times slower
+        assertThat(p50s[SIZES.length - 1]).isLessThan(3 * p50s[0] + 500_000L);
+    }
+
+}
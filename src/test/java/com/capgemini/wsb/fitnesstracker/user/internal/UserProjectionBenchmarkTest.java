@@ -0,0 +1,103 @@
+package com.capgemini.wsb.fitnesstracker.user.internal;
+
+import com.capgemini.wsb.fitnesstracker.IntegrationTest;
+import com.capgemini.wsb.fitnesstracker.user.api.SimpleUserDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.LongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the heap allocated per page of {@code GET /v1/users/simple} when the page is projected straight into
+ * {@link SimpleUserDto} with loading managed users and mapping them through {@link UserMapper}, as the endpoint did before.
+ * Every page is read in its own transaction, like a request. Inserting the users takes a while, so it runs only
+ * on demand: {@code mvn test -Dtest=UserProjectionBenchmarkTest -Dbenchmark=true}.
+ */
+@IntegrationTest
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class UserProjectionBenchmarkTest {
+
+    private static final int USERS = 100_000;
+
+    private static final int PAGE_SIZE = 100;
+
+    private static final int MEASURED_PASSES = 3;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void deleteUsers() {
+        UserBenchmarkData.deleteUsers(jdbcTemplate);
+    }
+
+    @Test
+    void shouldAllocateLessPerPage_whenProjectingSimpleUsers() {
+        UserBenchmarkData.insertUsers(jdbcTemplate, 0, USERS);
+        LongFunction<List<SimpleUserDto>> entities = afterId -> userRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, PAGE_SIZE))
+                                                                                .stream()
+                                                                                .map(userMapper::toSimpleUserDto)
+                                                                                .toList();
+        LongFunction<List<SimpleUserDto>> projections = afterId -> userRepository.findSimpleUsersAfter(afterId, PageRequest.of(0, PAGE_SIZE));
+
+        readAllPages(entities);
+        readAllPages(projections);
+        double[] entityPage = measure(entities);
+        double[] projectionPage = measure(projections);
+
+        System.out.printf("Simple users page of %d: entities %.0f bytes in %.3f ms, projections %.0f bytes in %.3f ms%n",
+                          PAGE_SIZE, entityPage[0], entityPage[1] / 1e6, projectionPage[0], projectionPage[1] / 1e6);
+        assertThat(projectionPage[0]).isLessThan(entityPage[0]);
+    }
+
+    /**
+     * @return the mean bytes allocated and nanoseconds spent per page
+     */
+    private double[] measure(LongFunction<List<SimpleUserDto>> page) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long bytes = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        int pages = 0;
+        for (int pass = 0; pass < MEASURED_PASSES; pass++)
+            pages += readAllPages(page);
+        long nanos = System.nanoTime() - start;
+        bytes = threads.getCurrentThreadAllocatedBytes() - bytes;
+        return new double[]{(double) bytes / pages, (double) nanos / pages};
+    }
+
+    private int readAllPages(LongFunction<List<SimpleUserDto>> page) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        long afterId = UserBenchmarkData.FIRST_ID - 1;
+        int pages = 0;
+        while (true) {
+            long after = afterId;
+            List<SimpleUserDto> users = transaction.execute(status -> page.apply(after));
+            if (users.isEmpty())
+                return pages;
+            afterId = users.get(users.size() - 1).userId();
+            pages++;
+        }
+    }
+
+}
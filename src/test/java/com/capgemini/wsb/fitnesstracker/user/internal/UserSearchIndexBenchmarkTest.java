@@ -0,0 +1,65 @@
+package com.capgemini.wsb.fitnesstracker.user.internal;
+
+import com.capgemini.wsb.fitnesstracker.user.api.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures the search latency of a user search index holding a million users.
+ * Needs about 1 GB of heap, so it runs only on demand: {@code mvn test -Dtest=UserSearchIndexBenchmarkTest -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class UserSearchIndexBenchmarkTest {
+
+    private static final int USERS = 1_000_000;
+
+    private static final int WARMUP_QUERIES = 50_000;
+
+    private static final int MEASURED_QUERIES = 20_000;
+
+    private static final int LIMIT = 20;
+
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz";
+
+    @Test
+    void shouldSearchMillionUsersWithinFiveMillisecondsAtP99() {
+        Random random = new Random(42);
+        UserSearchIndex index = new UserSearchIndex(null, null, null);
+        for (long id = 1; id <= USERS; id++) {
+            User user = new User(randomWord(random, 6), randomWord(random, 9), LocalDate.now(), randomWord(random, 8) + "@example.com");
+            user.setId(id);
+            index.add(user);
+        }
+
+        for (int i = 0; i < WARMUP_QUERIES; i++)
+            index.search(randomWord(random, 1 + random.nextInt(4)), LIMIT);
+
+        long[] nanos = new long[MEASURED_QUERIES];
+        for (int i = 0; i < MEASURED_QUERIES; i++) {
+            String prefix = randomWord(random, 1 + random.nextInt(4));
+            long start = System.nanoTime();
+            index.search(prefix, LIMIT);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        long p50 = nanos[MEASURED_QUERIES / 2];
+        long p99 = nanos[MEASURED_QUERIES * 99 / 100];
+        System.out.printf("User search over %d users: p50 %.3f ms, p99 %.3f ms%n", USERS, p50 / 1e6, p99 / 1e6);
+
+        assertThat(p99).isLessThan(5_000_000L);
+    }
+
+    private static String randomWord(Random random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++)
+            chars[i] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+        return new String(chars);
+    }
+
+}